@@ -0,0 +1,88 @@
+package com.example.safemode;
+
+import android.location.Location;
+
+/**
+ * Calcula com que frequência e com qual provedor a localização precisa ser lida para
+ * acompanhar as áreas permitidas.
+ * A cada localização mede a distância até a borda mais próxima entre as áreas, descontando
+ * a precisão da leitura, e supõe que o usuário se move no máximo a MAX_SPEED: o próximo
+ * intervalo é o tempo mínimo para cruzar a borda, limitado entre MIN_INTERVAL e
+ * MAX_INTERVAL. MAX_INTERVAL fica na metade de LOCATION_MAX_AGE, para que mesmo uma
+ * leitura atrasada chegue antes de a anterior ser considerada antiga pelo
+ * BlockDecisionEngine. Não há distância mínima entre leituras: com o aparelho parado ela
+ * suprimiria todas, e a localização salva envelheceria. Longe da borda usa apenas rede e
+ * leituras passivas; o GPS só é ligado a menos de GPS_DISTANCE metros dela. Deve ser
+ * usado por uma única thread.
+ */
+final class AdaptiveLocationScheduler {
+
+    static final long MIN_INTERVAL = 10000;
+    static final long MAX_INTERVAL = LocationHub.LOCATION_MAX_AGE / 2;
+    static final long DEFAULT_INTERVAL = 15000;
+    private static final float MAX_SPEED = 40;
+    private static final float GPS_DISTANCE = 500;
+    private static final float INTERVAL_TOLERANCE = 1.25f;
+    private final ZoneIndex.Query zoneQuery = new ZoneIndex.Query();
+    private long interval = DEFAULT_INTERVAL;
+    private boolean useGps = true;
+
+    // Retorna o intervalo atual entre leituras, em milissegundos
+    long getInterval() {
+        return interval;
+    }
+
+    // Retorna se o GPS deve estar ligado
+    boolean usesGps() {
+        return useGps;
+    }
+
+    // Recalcula o plano para a política e a localização informadas.
+    // Retorna true se ele mudou o bastante para justificar um novo registro no sistema.
+    boolean update(PolicySnapshot policy, Location location) {
+        long newInterval;
+        boolean newUseGps;
+
+        if (!policy.safeModeEnabled || !policy.locationEnabled || !policy.hasAllowedArea()) {
+            newInterval = MAX_INTERVAL;
+            newUseGps = false;
+
+        } else if (location == null
+                || System.currentTimeMillis() - location.getTime() > LocationHub.LOCATION_MAX_AGE) {
+            newInterval = DEFAULT_INTERVAL;
+            newUseGps = true;
+
+        } else {
+            float margin = distanceToBoundary(policy, location) - location.getAccuracy();
+
+            if (margin <= 0) {
+                newInterval = MIN_INTERVAL;
+                newUseGps = true;
+            } else {
+                newInterval = clamp((long) (margin / MAX_SPEED * 1000), MIN_INTERVAL, MAX_INTERVAL);
+                newUseGps = margin < GPS_DISTANCE;
+            }
+        }
+
+        boolean changed = newUseGps != useGps
+                || newInterval > interval * INTERVAL_TOLERANCE
+                || newInterval * INTERVAL_TOLERANCE < interval;
+
+        if (changed) {
+            interval = newInterval;
+            useGps = newUseGps;
+        }
+        return changed;
+    }
+
+    // Retorna a distância em metros entre a localização e a borda mais próxima entre as áreas
+    private float distanceToBoundary(PolicySnapshot policy, Location location) {
+        policy.zones.query(location.getLatitude(), location.getLongitude(), null, zoneQuery);
+        return zoneQuery.nearestBoundary;
+    }
+
+    // Limita o valor ao intervalo informado
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.AtomicFile;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catálogo único do processo com os aplicativos que aparecem no launcher.
+ * Na abertura publica imediatamente o catálogo salvo em disco e em seguida o reconcilia
+ * em background com o PackageManager, carregando o nome apenas dos pacotes cuja impressão
+ * digital (versionCode e lastUpdateTime) mudou. Os nomes são carregados em paralelo em um
+ * pool limitado e, na primeira varredura, a lista parcial já ordenada é publicada a cada
+ * STREAM_BATCH_SIZE apps. Os ícones ficam a cargo do IconCache. Depois disso, cada
+ * broadcast de instalação, remoção ou alteração atualiza só o pacote informado. As telas
+ * leem uma AppCatalogSnapshot imutável e são avisadas na thread principal sempre que uma
+ * nova fotografia é publicada.
+ */
+public class AppCatalog implements PackageChangeMonitor.PackageChangeListener {
+
+    private static final String FILE_NAME = "app_catalog.bin";
+    private static final int FORMAT_VERSION = 2;
+    private static final int LOADER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int STREAM_BATCH_SIZE = 24;
+    private static final Comparator<AppCatalogEntry> BY_LABEL =
+            (a, b) -> a.label.compareToIgnoreCase(b.label);
+    private static volatile AppCatalog instance;
+    private final Context context;
+    private final AtomicFile file;
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final List<CatalogChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService loaderExecutor = Executors.newFixedThreadPool(LOADER_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile AppCatalogSnapshot snapshot;
+
+    // Construtor privado que agenda a carga do disco e a reconciliação, e passa a observar pacotes
+    private AppCatalog(Context context) {
+        this.context = context;
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        snapshot = new AppCatalogSnapshot(versionCounter.incrementAndGet(), false,
+                new ArrayList<>());
+        PackageChangeMonitor.getInstance(context).addListener(this);
+        executor.execute(() -> {
+            loadFromDisk();
+            reconcile();
+        });
+    }
+
+    // Retorna a instância única do catálogo
+    public static AppCatalog getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppCatalog.class) {
+                if (instance == null) {
+                    instance = new AppCatalog(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna a fotografia atual do catálogo
+    public AppCatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Adiciona um listener chamado na thread principal a cada nova fotografia
+    public void addListener(CatalogChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    // Remove um listener de mudanças do catálogo
+    public void removeListener(CatalogChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Aplica no catálogo apenas a mudança do pacote recebido no broadcast
+    @Override
+    public void onPackageChanged(String action, String packageName, boolean replacing) {
+        if (Intent.ACTION_PACKAGE_REMOVED.equals(action) && replacing) {
+            return;
+        }
+
+        executor.execute(() -> updatePackage(packageName));
+    }
+
+    // Publica o catálogo salvo em disco, se existir, antes de qualquer consulta ao PackageManager
+    private void loadFromDisk() {
+        List<AppCatalogEntry> entries = readFile();
+
+        if (entries != null && !entries.isEmpty()) {
+            Collections.sort(entries, BY_LABEL);
+            publish(entries);
+        }
+    }
+
+    // Compara as atividades de launcher instaladas com o catálogo atual, recarregando nome
+    // apenas das entradas novas ou cuja impressão digital mudou
+    private void reconcile() {
+        PackageManager pm = context.getPackageManager();
+        List<ResolveInfo> resolveInfos;
+        Map<String, PackageInfo> packageInfos = new HashMap<>();
+
+        try {
+            Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+            mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+            resolveInfos = pm.queryIntentActivities(mainIntent, 0);
+
+            for (PackageInfo packageInfo : pm.getInstalledPackages(0)) {
+                packageInfos.put(packageInfo.packageName, packageInfo);
+            }
+        } catch (Exception e) {
+            if (!snapshot.loaded) {
+                publish(new ArrayList<>());
+            }
+            return;
+        }
+
+        Map<String, AppCatalogEntry> cached = new HashMap<>();
+        for (AppCatalogEntry entry : snapshot.getEntries()) {
+            cached.put(componentKey(entry.packageName, entry.activityName), entry);
+        }
+
+        List<AppCatalogEntry> entries = new ArrayList<>(resolveInfos.size());
+        CompletionService<AppCatalogEntry> loader = new ExecutorCompletionService<>(loaderExecutor);
+        boolean streaming = !snapshot.loaded;
+        boolean changed = streaming;
+        int reused = 0;
+        int pending = 0;
+
+        for (ResolveInfo resolveInfo : resolveInfos) {
+            PackageInfo packageInfo = packageInfos.get(resolveInfo.activityInfo.packageName);
+            AppCatalogEntry previous = cached.get(
+                    componentKey(resolveInfo.activityInfo.packageName, resolveInfo.activityInfo.name));
+
+            if (previous != null && packageInfo != null
+                    && previous.matches(AppLabelCache.versionCodeOf(packageInfo), packageInfo.lastUpdateTime)
+                    && previous.enabled == resolveInfo.activityInfo.applicationInfo.enabled) {
+                insertSorted(entries, previous);
+                reused++;
+                continue;
+            }
+
+            loader.submit(() -> toEntry(resolveInfo, packageInfo));
+            pending++;
+        }
+
+        if (reused != cached.size() || pending > 0) {
+            changed = true;
+        }
+
+        for (int received = 1; received <= pending; received++) {
+            try {
+                AppCatalogEntry entry = loader.take().get();
+                if (entry != null) {
+                    insertSorted(entries, entry);
+                }
+            } catch (Exception e) {
+            }
+
+            if (streaming && received % STREAM_BATCH_SIZE == 0 && received < pending) {
+                publish(new ArrayList<>(entries));
+            }
+        }
+
+        if (changed) {
+            publish(entries);
+            writeFile(entries);
+            IconCache.getInstance(context).prune(entries);
+        }
+    }
+
+    // Substitui as entradas de um único pacote pelas que ele declara agora
+    private void updatePackage(String packageName) {
+        List<AppCatalogEntry> entries = new ArrayList<>(snapshot.getEntries());
+
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).packageName.equals(packageName)) {
+                entries.remove(i);
+            }
+        }
+
+        try {
+            PackageManager pm = context.getPackageManager();
+            Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+            mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+            mainIntent.setPackage(packageName);
+            List<ResolveInfo> resolveInfos = pm.queryIntentActivities(mainIntent, 0);
+
+            if (!resolveInfos.isEmpty()) {
+                PackageInfo packageInfo = pm.getPackageInfo(packageName, 0);
+
+                for (ResolveInfo resolveInfo : resolveInfos) {
+                    AppCatalogEntry entry = toEntry(resolveInfo, packageInfo);
+                    if (entry != null) {
+                        insertSorted(entries, entry);
+                    }
+                }
+            }
+        } catch (Exception e) {
+        }
+
+        publish(entries);
+        writeFile(entries);
+        IconCache.getInstance(context).prune(entries);
+    }
+
+    // Converte um resultado do PackageManager em uma entrada do catálogo
+    private AppCatalogEntry toEntry(ResolveInfo resolveInfo, PackageInfo packageInfo) {
+        try {
+            PackageManager pm = context.getPackageManager();
+            ApplicationInfo applicationInfo = resolveInfo.activityInfo.applicationInfo;
+
+            return new AppCatalogEntry(
+                    resolveInfo.activityInfo.packageName,
+                    resolveInfo.activityInfo.name,
+                    resolveInfo.loadLabel(pm).toString(),
+                    (applicationInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0,
+                    applicationInfo.enabled,
+                    packageInfo != null ? AppLabelCache.versionCodeOf(packageInfo) : 0,
+                    packageInfo != null ? packageInfo.lastUpdateTime : 0);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Retorna a chave que identifica uma atividade de launcher
+    private static String componentKey(String packageName, String activityName) {
+        return packageName + "/" + activityName;
+    }
+
+    // Insere a entrada na posição que mantém a lista ordenada pelo nome
+    private static void insertSorted(List<AppCatalogEntry> entries, AppCatalogEntry entry) {
+        int index = Collections.binarySearch(entries, entry, BY_LABEL);
+        entries.add(index < 0 ? -index - 1 : index, entry);
+    }
+
+    // Publica a nova fotografia, já ordenada, e notifica os listeners na thread principal
+    private void publish(List<AppCatalogEntry> entries) {
+        AppCatalogSnapshot newSnapshot = new AppCatalogSnapshot(versionCounter.incrementAndGet(), true, entries);
+        snapshot = newSnapshot;
+
+        mainHandler.post(() -> {
+            for (CatalogChangeListener listener : listeners) {
+                try {
+                    listener.onCatalogChanged(newSnapshot);
+                } catch (Exception e) {
+                }
+            }
+        });
+    }
+
+    // Salva o catálogo em disco
+    private void writeFile(List<AppCatalogEntry> entries) {
+        FileOutputStream output = null;
+        try {
+            output = file.startWrite();
+            DataOutputStream data = new DataOutputStream(output);
+
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(entries.size());
+
+            for (AppCatalogEntry entry : entries) {
+                data.writeUTF(entry.packageName);
+                data.writeUTF(entry.activityName);
+                data.writeUTF(entry.label);
+                data.writeBoolean(entry.systemApp);
+                data.writeBoolean(entry.enabled);
+                data.writeLong(entry.versionCode);
+                data.writeLong(entry.lastUpdateTime);
+            }
+
+            data.flush();
+            file.finishWrite(output);
+
+        } catch (Exception e) {
+            if (output != null) {
+                file.failWrite(output);
+            }
+        }
+    }
+
+    // Lê o catálogo salvo, retornando null se não existir ou for inválido
+    private List<AppCatalogEntry> readFile() {
+        try (FileInputStream input = file.openRead()) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+
+            if (data.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            int count = data.readInt();
+            List<AppCatalogEntry> entries = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                String packageName = data.readUTF();
+                String activityName = data.readUTF();
+                String label = data.readUTF();
+                boolean systemApp = data.readBoolean();
+                boolean enabled = data.readBoolean();
+                long versionCode = data.readLong();
+                long lastUpdateTime = data.readLong();
+
+                entries.add(new AppCatalogEntry(packageName, activityName, label, systemApp,
+                        enabled, versionCode, lastUpdateTime));
+            }
+
+            return entries;
+
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Interface de callback para notificar mudanças no catálogo
+    public interface CatalogChangeListener {
+        void onCatalogChanged(AppCatalogSnapshot snapshot);
+    }
+}
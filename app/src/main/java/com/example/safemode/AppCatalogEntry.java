@@ -0,0 +1,36 @@
+package com.example.safemode;
+
+/**
+ * Atividade de launcher de um aplicativo instalado, como vista pelo AppCatalog.
+ * Os campos são imutáveis; versionCode e lastUpdateTime formam a impressão digital usada
+ * para saber se a entrada salva em disco ainda corresponde ao pacote instalado. Os ícones
+ * não ficam na entrada; são carregados sob demanda pelo IconCache.
+ */
+public final class AppCatalogEntry {
+
+    public final String packageName;
+    public final String activityName;
+    public final String label;
+    public final boolean systemApp;
+    public final boolean enabled;
+    public final long versionCode;
+    public final long lastUpdateTime;
+
+    // Construtor que inicializa a entrada com os dados lidos do PackageManager ou do disco
+    public AppCatalogEntry(String packageName, String activityName, String label,
+                           boolean systemApp, boolean enabled, long versionCode,
+                           long lastUpdateTime) {
+        this.packageName = packageName;
+        this.activityName = activityName;
+        this.label = label;
+        this.systemApp = systemApp;
+        this.enabled = enabled;
+        this.versionCode = versionCode;
+        this.lastUpdateTime = lastUpdateTime;
+    }
+
+    // Retorna se a entrada corresponde à versão instalada do pacote
+    public boolean matches(long versionCode, long lastUpdateTime) {
+        return this.versionCode == versionCode && this.lastUpdateTime == lastUpdateTime;
+    }
+}
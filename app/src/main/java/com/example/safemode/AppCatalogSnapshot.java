@@ -0,0 +1,28 @@
+package com.example.safemode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fotografia imutável e versionada do catálogo de aplicativos instalados.
+ * Contém as atividades de launcher ordenadas pelo nome, prontas para serem exibidas
+ * pelas telas sem nenhuma consulta ao PackageManager.
+ */
+public final class AppCatalogSnapshot {
+
+    public final long version;
+    public final boolean loaded;
+    private final List<AppCatalogEntry> entries;
+
+    // Construtor que inicializa a fotografia com a lista já ordenada
+    AppCatalogSnapshot(long version, boolean loaded, List<AppCatalogEntry> entries) {
+        this.version = version;
+        this.loaded = loaded;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    // Retorna as atividades de launcher, ordenadas pelo nome do aplicativo
+    public List<AppCatalogEntry> getEntries() {
+        return entries;
+    }
+}
@@ -1,18 +1,17 @@
 package com.example.safemode;
 
-import android.graphics.drawable.Drawable;
-
 import java.util.Objects;
 
 /**
  * Classe de modelo que representa as informações de um aplicativo instalado no dispositivo.
- * Armazena dados como nome do pacote, nome da aplicação, ícone e status de bloqueio.
+ * Armazena dados como nome do pacote, nome da aplicação, activity do ícone e status de bloqueio.
  */
 public class AppInfo {
 
     public String packageName;
     public String appName;
-    public Drawable icon;
+    public String activityName;
+    public long lastUpdateTime;
     public boolean isBlocked;
     public boolean isSystemApp;
 
@@ -20,11 +19,12 @@ public class AppInfo {
     public AppInfo() {
     }
 
-    // Construtor que inicializa o aplicativo com nome do pacote, nome da aplicação e ícone
-    public AppInfo(String packageName, String appName, Drawable icon) {
+    // Construtor que inicializa o aplicativo com nome do pacote, nome da aplicação e a activity do ícone
+    public AppInfo(String packageName, String appName, String activityName, long lastUpdateTime) {
         this.packageName = packageName;
         this.appName = appName;
-        this.icon = icon;
+        this.activityName = activityName;
+        this.lastUpdateTime = lastUpdateTime;
         this.isBlocked = false;
         this.isSystemApp = false;
     }
@@ -0,0 +1,289 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache de nomes de aplicativos compartilhado por todo o processo.
+ * Guarda o nome de cada pacote junto com o versionCode em que foi resolvido, em um LRU
+ * limitado a MAX_ENTRIES pacotes, para que telas de bloqueio e histórico não façam uma
+ * chamada ao PackageManager a cada exibição. As entradas são descartadas quando o pacote
+ * é instalado, removido ou atualizado, os apps bloqueados e ocultos são pré-carregados a
+ * cada mudança de política e o cache é salvo em arquivo para sobreviver a reinícios. Como
+ * um app pode ser atualizado com o processo parado, as entradas lidas do arquivo só valem
+ * depois de conferidas com o versionCode instalado, no primeiro uso ou em background logo
+ * após o carregamento.
+ */
+public class AppLabelCache implements PackageChangeMonitor.PackageChangeListener,
+        PolicyManager.PolicyChangeListener {
+
+    private static final String FILE_NAME = "app_labels.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_ENTRIES = 256;
+    private static volatile AppLabelCache instance;
+    private final Context context;
+    private final AtomicFile file;
+    private final LinkedHashMap<String, LabelEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean persistScheduled = new AtomicBoolean(false);
+
+    // Construtor privado que carrega o cache salvo e passa a observar pacotes e política
+    private AppLabelCache(Context context) {
+        this.context = context;
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        load();
+        executor.execute(this::revalidateLoaded);
+        PackageChangeMonitor.getInstance(context).addListener(this);
+        PolicyManager policyManager = PolicyManager.getInstance(context);
+        policyManager.addListener(this);
+        warmAsync(policyManager.getSnapshot());
+    }
+
+    // Retorna a instância única do cache
+    public static AppLabelCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppLabelCache.class) {
+                if (instance == null) {
+                    instance = new AppLabelCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna o nome do aplicativo, consultando o PackageManager apenas quando não está em cache.
+    // Retorna null se o pacote não estiver instalado.
+    public String getLabel(String packageName) {
+        if (packageName == null || packageName.isEmpty()) {
+            return null;
+        }
+
+        LabelEntry entry;
+        synchronized (entries) {
+            entry = entries.get(packageName);
+        }
+
+        if (entry != null && entry.verified) {
+            return entry.label;
+        }
+
+        LabelEntry current = refresh(packageName, entry);
+        return current != null ? current.label : null;
+    }
+
+    // Descarta a entrada do pacote quando ele é instalado, removido ou atualizado
+    @Override
+    public void onPackageChanged(String action, String packageName, boolean replacing) {
+        boolean removed;
+        synchronized (entries) {
+            removed = entries.remove(packageName) != null;
+        }
+
+        if (removed) {
+            schedulePersist();
+        }
+
+        if (Intent.ACTION_PACKAGE_ADDED.equals(action) || Intent.ACTION_PACKAGE_REPLACED.equals(action)) {
+            Set<String> packages = new HashSet<>();
+            packages.add(packageName);
+            warmAsync(packages);
+        }
+    }
+
+    // Pré-carrega os nomes dos apps bloqueados e ocultos sempre que a política muda
+    @Override
+    public void onPolicyChanged(PolicySnapshot snapshot) {
+        warmAsync(snapshot);
+    }
+
+    // Agenda o pré-carregamento dos apps bloqueados e ocultos da política informada
+    private void warmAsync(PolicySnapshot snapshot) {
+        Set<String> packages = new HashSet<>(snapshot.getBlockedApps());
+        packages.addAll(snapshot.getHiddenApps());
+        warmAsync(packages);
+    }
+
+    // Resolve em background os pacotes ainda ausentes ou com versionCode desatualizado
+    private void warmAsync(Set<String> packages) {
+        if (packages.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            for (String packageName : packages) {
+                LabelEntry cached;
+                synchronized (entries) {
+                    cached = entries.get(packageName);
+                }
+                refresh(packageName, cached);
+            }
+        });
+    }
+
+    // Confere em background as entradas lidas do arquivo que ainda não foram usadas
+    private void revalidateLoaded() {
+        List<Map.Entry<String, LabelEntry>> copy;
+        synchronized (entries) {
+            copy = new ArrayList<>(entries.entrySet());
+        }
+
+        for (Map.Entry<String, LabelEntry> entry : copy) {
+            if (!entry.getValue().verified) {
+                refresh(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Confere a entrada com o versionCode instalado e retorna a entrada válida, resolvendo o
+    // nome de novo quando a versão mudou. Retorna null se o pacote não estiver instalado.
+    private LabelEntry refresh(String packageName, LabelEntry cached) {
+        PackageInfo packageInfo;
+        try {
+            packageInfo = context.getPackageManager().getPackageInfo(packageName, 0);
+        } catch (Exception e) {
+            if (cached != null) {
+                synchronized (entries) {
+                    entries.remove(packageName);
+                }
+                schedulePersist();
+            }
+            return null;
+        }
+
+        long versionCode = versionCodeOf(packageInfo);
+        if (cached != null && cached.versionCode == versionCode) {
+            LabelEntry verified = new LabelEntry(cached.label, versionCode, true);
+            put(packageName, verified);
+            return verified;
+        }
+
+        LabelEntry resolved = new LabelEntry(labelOf(packageInfo), versionCode, true);
+        put(packageName, resolved);
+        schedulePersist();
+        return resolved;
+    }
+
+    // Retorna o nome visível do aplicativo
+    private String labelOf(PackageInfo packageInfo) {
+        PackageManager pm = context.getPackageManager();
+        if (packageInfo.applicationInfo == null) {
+            return packageInfo.packageName;
+        }
+        return pm.getApplicationLabel(packageInfo.applicationInfo).toString();
+    }
+
+    // Retorna o versionCode do pacote de forma compatível com versões antigas do Android
+    @SuppressWarnings("deprecation")
+    static long versionCodeOf(PackageInfo packageInfo) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return packageInfo.getLongVersionCode();
+        }
+        return packageInfo.versionCode;
+    }
+
+    // Insere uma entrada, descartando a menos usada quando o limite é atingido
+    private void put(String packageName, LabelEntry entry) {
+        synchronized (entries) {
+            entries.put(packageName, entry);
+
+            if (entries.size() > MAX_ENTRIES) {
+                String eldest = entries.keySet().iterator().next();
+                entries.remove(eldest);
+            }
+        }
+    }
+
+    // Agenda uma única gravação em background para várias alterações seguidas
+    private void schedulePersist() {
+        if (persistScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                persistScheduled.set(false);
+                persist();
+            });
+        }
+    }
+
+    // Salva o cache em disco, do menos para o mais usado
+    private void persist() {
+        List<Map.Entry<String, LabelEntry>> copy;
+        synchronized (entries) {
+            copy = new ArrayList<>(entries.entrySet());
+        }
+
+        FileOutputStream output = null;
+        try {
+            output = file.startWrite();
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(copy.size());
+
+            for (Map.Entry<String, LabelEntry> entry : copy) {
+                data.writeUTF(entry.getKey());
+                data.writeUTF(entry.getValue().label);
+                data.writeLong(entry.getValue().versionCode);
+            }
+
+            data.flush();
+            file.finishWrite(output);
+
+        } catch (Exception e) {
+            if (output != null) {
+                file.failWrite(output);
+            }
+        }
+    }
+
+    // Carrega o cache salvo, ignorando um arquivo ausente ou inválido
+    private void load() {
+        try (FileInputStream input = file.openRead()) {
+            DataInputStream data = new DataInputStream(input);
+
+            if (data.readInt() != FORMAT_VERSION) {
+                return;
+            }
+
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                String packageName = data.readUTF();
+                String label = data.readUTF();
+                long versionCode = data.readLong();
+                put(packageName, new LabelEntry(label, versionCode, false));
+            }
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Nome de um pacote, o versionCode em que foi resolvido e se ele já foi conferido com o
+    // pacote instalado nesta execução
+    private static final class LabelEntry {
+        final String label;
+        final long versionCode;
+        final boolean verified;
+
+        LabelEntry(String label, long versionCode, boolean verified) {
+            this.label = label;
+            this.versionCode = versionCode;
+            this.verified = verified;
+        }
+    }
+}
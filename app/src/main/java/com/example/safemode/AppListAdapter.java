@@ -8,23 +8,52 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Adapter para exibir a lista de aplicativos em um RecyclerView.
  * Gerencia a exibição dos aplicativos instalados e permite marcar/desmarcar apps para bloqueio.
+ * As listas recebidas são comparadas em background com a lista atual, de forma que só as
+ * linhas que mudaram são reconstruídas. A lista autoritativa fica em items e é alterada na
+ * hora a cada marcação; o differ recebe sempre uma cópia dela, então marcações seguidas não
+ * se perdem enquanto a comparação anterior ainda não terminou.
  */
 public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.AppViewHolder> {
 
-    private final List<AppInfo> appList;
+    private static final DiffUtil.ItemCallback<AppInfo> DIFF_CALLBACK = new DiffUtil.ItemCallback<AppInfo>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull AppInfo oldItem, @NonNull AppInfo newItem) {
+            return Objects.equals(oldItem.packageName, newItem.packageName);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull AppInfo oldItem, @NonNull AppInfo newItem) {
+            return Objects.equals(oldItem.appName, newItem.appName)
+                    && Objects.equals(oldItem.activityName, newItem.activityName)
+                    && oldItem.lastUpdateTime == newItem.lastUpdateTime
+                    && oldItem.isBlocked == newItem.isBlocked;
+        }
+    };
+
+    private final AsyncListDiffer<AppInfo> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private final OnAppToggleListener listener;
+    private final List<AppInfo> items = new ArrayList<>();
+    private final Map<String, Long> stableIds = new HashMap<>();
 
     // Construtor que inicializa o adapter com a lista de apps e o listener
     public AppListAdapter(List<AppInfo> appList, OnAppToggleListener listener) {
-        this.appList = appList;
         this.listener = listener;
+        setHasStableIds(true);
+        items.addAll(appList);
+        differ.submitList(new ArrayList<>(items));
     }
 
     // Cria uma nova instância de ViewHolder para um item da lista
@@ -39,14 +68,48 @@ public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.AppViewH
     // Vincula os dados do aplicativo ao ViewHolder na posição especificada
     @Override
     public void onBindViewHolder(@NonNull AppViewHolder holder, int position) {
-        AppInfo app = appList.get(position);
+        AppInfo app = differ.getCurrentList().get(position);
         holder.bind(app);
     }
 
+    // Cancela o carregamento do ícone quando a view é reciclada
+    @Override
+    public void onViewRecycled(@NonNull AppViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.cancelIconLoad();
+    }
+
     // Retorna o número total de itens na lista
     @Override
     public int getItemCount() {
-        return appList.size();
+        return differ.getCurrentList().size();
+    }
+
+    // Retorna o id atribuído ao pacote do item, criando um novo na primeira vez que aparece
+    @Override
+    public long getItemId(int position) {
+        String packageName = differ.getCurrentList().get(position).packageName;
+        Long id = stableIds.get(packageName);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(packageName, id);
+        }
+        return id;
+    }
+
+    // Substitui a lista autoritativa e envia uma cópia para ser comparada em background com a atual
+    public void submitList(List<AppInfo> appList) {
+        items.clear();
+        items.addAll(appList);
+        differ.submitList(new ArrayList<>(items));
+    }
+
+    // Retorna uma cópia do item com a nova marcação, sem alterar o objeto que o differ guarda
+    private static AppInfo copyWithBlocked(AppInfo app, boolean isBlocked) {
+        AppInfo copy = new AppInfo(app.packageName, app.appName, app.activityName, app.lastUpdateTime);
+        copy.isSystemApp = app.isSystemApp;
+        copy.isBlocked = isBlocked;
+        return copy;
     }
 
     // Interface de callback para notificar quando um app é marcado/desmarcado para bloqueio
@@ -61,6 +124,7 @@ public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.AppViewH
         private final TextView nameTextView;
         private final TextView packageTextView;
         private final CheckBox blockCheckBox;
+        private IconCache.IconRequest iconRequest;
 
         // Construtor que inicializa as views do item
         public AppViewHolder(@NonNull View itemView) {
@@ -70,26 +134,50 @@ public class AppListAdapter extends RecyclerView.Adapter<AppListAdapter.AppViewH
             nameTextView = itemView.findViewById(R.id.app_name);
             packageTextView = itemView.findViewById(R.id.app_package);
             blockCheckBox = itemView.findViewById(R.id.checkbox_block);
+
+            itemView.setOnClickListener(v -> {
+                blockCheckBox.setChecked(!blockCheckBox.isChecked());
+            });
         }
 
-        // Vincula os dados do aplicativo às views e configura os listeners
+        // Vincula os dados do aplicativo às views e configura os listeners. O item é
+        // resolvido pela posição no momento do clique, pois uma lista nova com o mesmo
+        // conteúdo não faz a linha ser vinculada de novo.
         public void bind(AppInfo app) {
-
-            iconImageView.setImageDrawable(app.icon);
+            cancelIconLoad();
+            iconRequest = IconCache.getInstance(itemView.getContext())
+                    .load(app.packageName, app.activityName, app.lastUpdateTime, iconImageView);
             nameTextView.setText(app.appName);
             packageTextView.setText(app.packageName);
             packageTextView.setVisibility(View.GONE);
             blockCheckBox.setOnCheckedChangeListener(null);
             blockCheckBox.setChecked(app.isBlocked);
             blockCheckBox.setOnCheckedChangeListener((buttonView, isChecked) -> {
-                app.isBlocked = isChecked;
+                int position = getAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+
+                int index = items.indexOf(differ.getCurrentList().get(position));
+                if (index < 0) {
+                    return;
+                }
+
+                AppInfo updated = copyWithBlocked(items.get(index), isChecked);
+                items.set(index, updated);
+                differ.submitList(new ArrayList<>(items));
                 if (listener != null) {
-                    listener.onAppToggled(app, isChecked);
+                    listener.onAppToggled(updated, isChecked);
                 }
             });
-            itemView.setOnClickListener(v -> {
-                blockCheckBox.setChecked(!blockCheckBox.isChecked());
-            });
+        }
+
+        // Cancela o carregamento pendente do ícone deste item
+        void cancelIconLoad() {
+            if (iconRequest != null) {
+                iconRequest.cancel();
+                iconRequest = null;
+            }
         }
     }
 }
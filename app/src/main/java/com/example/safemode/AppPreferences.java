@@ -23,6 +23,12 @@ public class AppPreferences {
     private static final String KEY_LOCK_SCREEN_ENABLED = "lock_screen_enabled";
     private static final String KEY_HIDDEN_APPS = "hidden_apps";
     private static final String KEY_HIDE_MODE_ACTIVE = "hide_mode_active";
+    private static final String KEY_LOCATION_FAIL_CLOSED = "location_fail_closed";
+    private static final String KEY_ALLOWLISTED_APPS = "allowlisted_apps";
+    static final String KEY_PROTECT_SYSTEM_APPS = "protect_system_apps";
+    private static final String KEY_GLOBAL_EVENT_DELIVERY = "global_event_delivery";
+    private static final String KEY_BLOCK_DEBOUNCE_MS = "block_debounce_ms";
+    private static final int DEFAULT_BLOCK_DEBOUNCE_MS = 1500;
 
     private final SharedPreferences preferences;
 
@@ -31,6 +37,16 @@ public class AppPreferences {
         preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
     }
 
+    // Registra um listener para ser notificado quando qualquer preferência mudar
+    public void registerOnChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        preferences.registerOnSharedPreferenceChangeListener(listener);
+    }
+
+    // Remove o listener de mudanças das preferências
+    public void unregisterOnChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        preferences.unregisterOnSharedPreferenceChangeListener(listener);
+    }
+
     // Retorna uma cópia do conjunto de aplicativos bloqueados
     public Set<String> getBlockedApps() {
         Set<String> originalSet = preferences.getStringSet(KEY_BLOCKED_APPS, new HashSet<>());
@@ -59,16 +75,8 @@ public class AppPreferences {
     public boolean isAppBlocked(String packageName) {
 
         String cleanPackageName = packageName.trim();
-        Set<String> blockedApps = getBlockedApps();
-
-        boolean found = false;
-        for (String blockedApp : blockedApps) {
-            if (cleanPackageName.equals(blockedApp)) {
-                found = true;
-                break;
-            }
-        }
-        return found;
+        Set<String> blockedApps = preferences.getStringSet(KEY_BLOCKED_APPS, null);
+        return blockedApps != null && blockedApps.contains(cleanPackageName);
     }
 
     // Adiciona um aplicativo à lista de bloqueados
@@ -101,7 +109,7 @@ public class AppPreferences {
         editor.apply();
     }
 
-    // Retorna a latitude da localização permitida
+    // Retorna a latitude da antiga área única, lida só para a migração feita pelo ZoneStore
     public double getAllowedLatitude() {
         try {
             String latString = preferences.getString(KEY_ALLOWED_LATITUDE, "0.0");
@@ -112,7 +120,7 @@ public class AppPreferences {
         }
     }
 
-    // Retorna a longitude da localização permitida
+    // Retorna a longitude da antiga área única, lida só para a migração feita pelo ZoneStore
     public double getAllowedLongitude() {
         try {
             String lngString = preferences.getString(KEY_ALLOWED_LONGITUDE, "0.0");
@@ -123,7 +131,7 @@ public class AppPreferences {
         }
     }
 
-    // Retorna o raio permitido em metros
+    // Retorna o raio da antiga área única em metros, lido só para a migração feita pelo ZoneStore
     public int getAllowedRadius() {
         int value = preferences.getInt(KEY_ALLOWED_RADIUS, 100);
         return value;
@@ -142,20 +150,16 @@ public class AppPreferences {
         editor.apply();
     }
 
-    // Define a localização permitida com latitude, longitude e raio em metros
-    public void setAllowedLocation(double latitude, double longitude, int radiusInMeters) {
-        try {
-            SharedPreferences.Editor editor = preferences.edit();
-            editor.putString(KEY_ALLOWED_LATITUDE, String.valueOf(latitude));
-            editor.putString(KEY_ALLOWED_LONGITUDE, String.valueOf(longitude));
-            editor.putInt(KEY_ALLOWED_RADIUS, radiusInMeters);
-            editor.putBoolean(KEY_LOCATION_ENABLED, true);
-
-            editor.commit();
+    // Retorna se apps devem ser bloqueados enquanto a localização ainda é desconhecida
+    public boolean isLocationFailClosed() {
+        return preferences.getBoolean(KEY_LOCATION_FAIL_CLOSED, true);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    // Define se apps são bloqueados (true) ou liberados (false) enquanto a localização é desconhecida
+    public void setLocationFailClosed(boolean failClosed) {
+        SharedPreferences.Editor editor = preferences.edit();
+        editor.putBoolean(KEY_LOCATION_FAIL_CLOSED, failClosed);
+        editor.apply();
     }
 
     // Retorna se a tela de bloqueio está ativada
@@ -196,8 +200,8 @@ public class AppPreferences {
     // Verifica se um aplicativo específico está oculto
     public boolean isAppHidden(String packageName) {
         String cleanPackageName = packageName.trim();
-        Set<String> hiddenApps = getHiddenApps();
-        return hiddenApps.contains(cleanPackageName);
+        Set<String> hiddenApps = preferences.getStringSet(KEY_HIDDEN_APPS, null);
+        return hiddenApps != null && hiddenApps.contains(cleanPackageName);
     }
 
     // Retorna se o modo de ocultar aplicativos está ativo
@@ -212,4 +216,59 @@ public class AppPreferences {
         editor.putBoolean(KEY_HIDE_MODE_ACTIVE, active);
         editor.apply();
     }
-}
\ No newline at end of file
+
+    // Retorna uma cópia dos pacotes adicionados pelo usuário à lista de apps protegidos
+    public Set<String> getAllowlistedApps() {
+        Set<String> originalSet = preferences.getStringSet(KEY_ALLOWLISTED_APPS, new HashSet<>());
+        return new HashSet<>(originalSet);
+    }
+
+    // Salva os pacotes (ou prefixos de pacote) que nunca devem ser bloqueados
+    public void setAllowlistedApps(Set<String> allowlistedApps) {
+        Set<String> cleanSet = new HashSet<>();
+        for (String app : allowlistedApps) {
+            cleanSet.add(app.trim());
+        }
+
+        SharedPreferences.Editor editor = preferences.edit();
+        editor.putStringSet(KEY_ALLOWLISTED_APPS, cleanSet);
+        editor.apply();
+    }
+
+    // Retorna se todos os apps com FLAG_SYSTEM devem ser tratados como protegidos
+    public boolean isProtectSystemAppsEnabled() {
+        return preferences.getBoolean(KEY_PROTECT_SYSTEM_APPS, false);
+    }
+
+    // Define se todos os apps com FLAG_SYSTEM devem ser tratados como protegidos
+    public void setProtectSystemAppsEnabled(boolean enabled) {
+        SharedPreferences.Editor editor = preferences.edit();
+        editor.putBoolean(KEY_PROTECT_SYSTEM_APPS, enabled);
+        editor.apply();
+    }
+
+    // Retorna se o serviço de acessibilidade deve receber eventos de todos os pacotes
+    public boolean isGlobalEventDeliveryEnabled() {
+        return preferences.getBoolean(KEY_GLOBAL_EVENT_DELIVERY, false);
+    }
+
+    // Define se o serviço de acessibilidade deve receber eventos de todos os pacotes,
+    // necessário para regras que não se resolvem em uma lista fixa de pacotes
+    public void setGlobalEventDeliveryEnabled(boolean enabled) {
+        SharedPreferences.Editor editor = preferences.edit();
+        editor.putBoolean(KEY_GLOBAL_EVENT_DELIVERY, enabled);
+        editor.apply();
+    }
+
+    // Retorna a janela em milissegundos na qual eventos repetidos do mesmo app são agrupados
+    public int getBlockDebounceMs() {
+        return preferences.getInt(KEY_BLOCK_DEBOUNCE_MS, DEFAULT_BLOCK_DEBOUNCE_MS);
+    }
+
+    // Define a janela de agrupamento de eventos repetidos (0 desativa o agrupamento)
+    public void setBlockDebounceMs(int windowMs) {
+        SharedPreferences.Editor editor = preferences.edit();
+        editor.putInt(KEY_BLOCK_DEBOUNCE_MS, Math.max(0, windowMs));
+        editor.apply();
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.safemode;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice imutável de busca dos aplicativos do launcher.
+ * Os nomes são normalizados uma única vez (minúsculas e sem acentos) e indexados por
+ * trigramas, com as posições de início de cada palavra guardadas ao lado. Uma busca
+ * normaliza só o texto digitado, usa a lista de trigramas mais curta para encontrar os
+ * candidatos e ordena o resultado por relevância: início do nome, início de palavra e,
+ * por último, qualquer trecho do nome. Dentro de cada faixa a ordem alfabética é mantida.
+ */
+final class AppSearchIndex {
+
+    private static final int RANK_NAME_START = 0;
+    private static final int RANK_WORD_START = 1;
+    private static final int RANK_CONTAINS = 2;
+    private static final int RANK_COUNT = 3;
+    private static final int[] NO_POSTINGS = new int[0];
+    private final List<LauncherAppInfo> apps;
+    private final String[] foldedNames;
+    private final int[][] wordStarts;
+    private final Map<Long, int[]> trigrams;
+
+    // Construtor privado, use build para criar o índice
+    private AppSearchIndex(List<LauncherAppInfo> apps, String[] foldedNames, int[][] wordStarts,
+                           Map<Long, int[]> trigrams) {
+        this.apps = apps;
+        this.foldedNames = foldedNames;
+        this.wordStarts = wordStarts;
+        this.trigrams = trigrams;
+    }
+
+    // Cria o índice para a lista de aplicativos, mantendo a ordem recebida
+    static AppSearchIndex build(List<LauncherAppInfo> apps) {
+        List<LauncherAppInfo> copy = Collections.unmodifiableList(new ArrayList<>(apps));
+        String[] foldedNames = new String[copy.size()];
+        int[][] wordStarts = new int[copy.size()][];
+        Map<Long, List<Integer>> postings = new HashMap<>();
+
+        for (int i = 0; i < copy.size(); i++) {
+            String name = fold(copy.get(i).appName);
+            foldedNames[i] = name;
+            wordStarts[i] = findWordStarts(name);
+
+            for (int j = 0; j + 3 <= name.length(); j++) {
+                Long key = trigramKey(name, j);
+                List<Integer> list = postings.get(key);
+
+                if (list == null) {
+                    list = new ArrayList<>();
+                    postings.put(key, list);
+                }
+                if (list.isEmpty() || list.get(list.size() - 1) != i) {
+                    list.add(i);
+                }
+            }
+        }
+
+        Map<Long, int[]> trigrams = new HashMap<>(postings.size() * 2);
+        for (Map.Entry<Long, List<Integer>> entry : postings.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            trigrams.put(entry.getKey(), array);
+        }
+
+        return new AppSearchIndex(copy, foldedNames, wordStarts, trigrams);
+    }
+
+    // Converte o texto para minúsculas e remove os acentos, sem expressões regulares
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String normalized = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(normalized.length());
+
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    // Retorna os apps cujo nome contém o texto buscado, ordenados por relevância
+    List<LauncherAppInfo> search(String query) {
+        String folded = fold(query);
+
+        if (folded.isEmpty()) {
+            return apps;
+        }
+
+        int[] candidates = candidatesFor(folded);
+        int[] ranks = new int[candidates.length];
+        int[] rankCounts = new int[RANK_COUNT];
+        int matches = 0;
+
+        for (int c = 0; c < candidates.length; c++) {
+            int rank = rankOf(candidates[c], folded);
+            ranks[c] = rank;
+            if (rank >= 0) {
+                rankCounts[rank]++;
+                matches++;
+            }
+        }
+
+        LauncherAppInfo[] ordered = new LauncherAppInfo[matches];
+        int[] nextSlot = new int[RANK_COUNT];
+        for (int rank = 1; rank < RANK_COUNT; rank++) {
+            nextSlot[rank] = nextSlot[rank - 1] + rankCounts[rank - 1];
+        }
+
+        for (int c = 0; c < candidates.length; c++) {
+            if (ranks[c] >= 0) {
+                ordered[nextSlot[ranks[c]]++] = apps.get(candidates[c]);
+            }
+        }
+
+        List<LauncherAppInfo> result = new ArrayList<>(matches);
+        Collections.addAll(result, ordered);
+        return result;
+    }
+
+    // Retorna os índices candidatos em ordem crescente; para buscas com três ou mais letras
+    // usa a lista de trigramas mais curta da busca, para as menores percorre todos os nomes
+    private int[] candidatesFor(String folded) {
+        if (folded.length() < 3) {
+            int[] all = new int[foldedNames.length];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] shortest = null;
+        for (int j = 0; j + 3 <= folded.length(); j++) {
+            int[] list = trigrams.get(trigramKey(folded, j));
+            if (list == null) {
+                return NO_POSTINGS;
+            }
+            if (shortest == null || list.length < shortest.length) {
+                shortest = list;
+            }
+        }
+
+        return shortest;
+    }
+
+    // Retorna a faixa de relevância do nome para a busca, ou -1 se não houver correspondência
+    private int rankOf(int index, String folded) {
+        String name = foldedNames[index];
+
+        if (name.startsWith(folded)) {
+            return RANK_NAME_START;
+        }
+
+        for (int start : wordStarts[index]) {
+            if (name.startsWith(folded, start)) {
+                return RANK_WORD_START;
+            }
+        }
+
+        return name.contains(folded) ? RANK_CONTAINS : -1;
+    }
+
+    // Retorna as posições em que começa cada palavra do nome, exceto a primeira
+    private static int[] findWordStarts(String name) {
+        int count = 0;
+        for (int i = 1; i < name.length(); i++) {
+            if (isWordStart(name, i)) {
+                count++;
+            }
+        }
+
+        int[] starts = new int[count];
+        int next = 0;
+        for (int i = 1; i < name.length(); i++) {
+            if (isWordStart(name, i)) {
+                starts[next++] = i;
+            }
+        }
+        return starts;
+    }
+
+    // Verifica se a posição começa uma nova palavra
+    private static boolean isWordStart(String name, int i) {
+        return Character.isLetterOrDigit(name.charAt(i)) && !Character.isLetterOrDigit(name.charAt(i - 1));
+    }
+
+    // Retorna a chave do trigrama que começa na posição informada
+    private static long trigramKey(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
@@ -1,11 +1,6 @@
 package com.example.safemode;
 
-import android.content.Intent;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
 import android.graphics.Color;
-import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
@@ -19,7 +14,6 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -28,7 +22,7 @@ import java.util.Set;
  * Activity responsável por exibir a lista de aplicativos instalados e permitir ao usuário
  * selecionar quais apps devem ser bloqueados pelo modo seguro.
  */
-public class AppSelectionActivity extends AppCompatActivity {
+public class AppSelectionActivity extends AppCompatActivity implements AppCatalog.CatalogChangeListener {
 
     private RecyclerView recyclerView;
     private LinearLayout layoutEmpty;
@@ -56,6 +50,13 @@ public class AppSelectionActivity extends AppCompatActivity {
         loadInstalledApps();
     }
 
+    // Deixa de observar o catálogo ao destruir a activity
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        AppCatalog.getInstance(this).removeListener(this);
+    }
+
     // Inicializa as views, RecyclerView e o adapter
     private void initializeViews() {
         recyclerView = findViewById(R.id.recycler_apps);
@@ -157,179 +158,95 @@ public class AppSelectionActivity extends AppCompatActivity {
         }
     }
 
-    // Inicia o carregamento assíncrono dos aplicativos instalados
+    // Exibe o catálogo atual e passa a observar suas mudanças
     private void loadInstalledApps() {
-        showLoadingState();
-        new LoadAppsTask().execute();
-    }
+        AppCatalog catalog = AppCatalog.getInstance(this);
+        catalog.addListener(this);
 
-    // Callback chamado quando um app é marcado/desmarcado para bloqueio
-    private void onAppToggled(AppInfo appInfo, boolean isBlocked) {
-        if (isBlocked) {
-            preferences.addBlockedApp(appInfo.packageName);
+        AppCatalogSnapshot snapshot = catalog.getSnapshot();
+        if (snapshot.loaded) {
+            onCatalogChanged(snapshot);
         } else {
-            preferences.removeBlockedApp(appInfo.packageName);
+            showLoadingState();
         }
     }
 
-    // AsyncTask para carregar a lista de aplicativos em background
-    private class LoadAppsTask extends AsyncTask<Void, Integer, List<AppInfo>> {
-
-        // Prepara a UI antes de iniciar o carregamento
-        @Override
-        protected void onPreExecute() {
-            super.onPreExecute();
-            runOnUiThread(() -> showLoadingState());
-        }
-
-        // Carrega todos os aplicativos instalados em background
-        @Override
-        protected List<AppInfo> doInBackground(Void... voids) {
-            List<AppInfo> apps = new ArrayList<>();
-            Set<String> packageNameSet = new HashSet<>();
-
-            try {
-                PackageManager packageManager = getPackageManager();
-                Set<String> blockedApps = preferences.getBlockedApps();
-
-                Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
-                mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
-
-                List<ResolveInfo> resolveInfos = packageManager.queryIntentActivities(mainIntent, 0);
-
-                int totalApps = resolveInfos.size();
-                int processedApps = 0;
-                int addedApps = 0;
-
-                for (ResolveInfo info : resolveInfos) {
-                    processedApps++;
-
-                    ApplicationInfo applicationInfo = info.activityInfo.applicationInfo;
-                    String packageName = applicationInfo.packageName;
+    // Reconstrói a lista a partir de uma nova fotografia do catálogo
+    @Override
+    public void onCatalogChanged(AppCatalogSnapshot snapshot) {
+        try {
+            List<AppInfo> apps = buildAppList(snapshot);
 
-                    if (processedApps % 20 == 0) {
-                        publishProgress(processedApps, totalApps);
-                    }
+            if (apps.isEmpty()) {
+                showEmptyState();
+                return;
+            }
 
-                    if (packageNameSet.contains(packageName)) {
-                        continue;
-                    }
-                    packageNameSet.add(packageName);
+            appList.clear();
+            appList.addAll(apps);
 
-                    if (isCriticalSystemApp(packageName)) {
-                        continue;
-                    }
+            if (adapter != null) {
+                adapter.submitList(appList);
+            }
+            showAppsList();
 
-                    if (packageName.equals(getPackageName())) {
-                        continue;
-                    }
+        } catch (Exception e) {
+            showEmptyState();
+        }
+    }
 
-                    if (!hasLauncherIntent(packageName)) {
-                        continue;
-                    }
+    // Filtra o catálogo removendo apps protegidos, desativados e o próprio SafeMode
+    private List<AppInfo> buildAppList(AppCatalogSnapshot snapshot) {
+        List<AppInfo> apps = new ArrayList<>();
+        Set<String> packageNameSet = new HashSet<>();
+        Set<String> blockedApps = preferences.getBlockedApps();
+        PolicySnapshot policy = PolicyManager.getInstance(this).getSnapshot();
 
-                    if (!applicationInfo.enabled) {
-                        continue;
-                    }
+        for (AppCatalogEntry entry : snapshot.getEntries()) {
+            String packageName = entry.packageName;
 
-                    AppInfo app = new AppInfo();
-                    app.packageName = packageName;
-                    app.appName = packageManager.getApplicationLabel(applicationInfo).toString();
-                    app.icon = packageManager.getApplicationIcon(applicationInfo);
-                    app.isBlocked = blockedApps.contains(packageName);
-                    app.isSystemApp = (applicationInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0;
+            if (!packageNameSet.add(packageName)) {
+                continue;
+            }
 
-                    apps.add(app);
-                    addedApps++;
-                }
+            if (policy.isProtectedApp(packageName)) {
+                continue;
+            }
 
-                Collections.sort(apps, (a, b) -> a.appName.compareToIgnoreCase(b.appName));
-            } catch (Exception e) {
+            if (packageName.equals(getPackageName())) {
+                continue;
             }
 
-            return apps;
-        }
+            if (!entry.enabled) {
+                continue;
+            }
 
-        // Atualiza o progresso do carregamento (não implementado)
-        @Override
-        protected void onProgressUpdate(Integer... values) {
-        }
+            AppInfo app = new AppInfo();
+            app.packageName = packageName;
+            app.appName = entry.label;
+            app.activityName = entry.activityName;
+            app.lastUpdateTime = entry.lastUpdateTime;
+            app.isBlocked = blockedApps.contains(packageName);
+            app.isSystemApp = entry.systemApp;
 
-        // Atualiza a UI com os aplicativos carregados
-        @Override
-        protected void onPostExecute(List<AppInfo> apps) {
-            try {
-                if (apps == null) {
-                    runOnUiThread(() -> showEmptyState());
-                    return;
-                }
-
-                if (apps.isEmpty()) {
-                    runOnUiThread(() -> showEmptyState());
-                    return;
-                }
-
-                runOnUiThread(() -> {
-                    try {
-                        appList.clear();
-                        appList.addAll(apps);
-
-                        if (adapter != null) {
-                            adapter.notifyDataSetChanged();
-                        }
-                        showAppsList();
-
-                    } catch (Exception e) {
-                        showEmptyState();
-                    }
-                });
-
-            } catch (Exception e) {
-                runOnUiThread(() -> showEmptyState());
-            }
+            apps.add(app);
         }
 
-        // Chamado quando a task é cancelada
-        @Override
-        protected void onCancelled() {
-            super.onCancelled();
-            runOnUiThread(() -> showEmptyState());
-        }
+        return apps;
+    }
 
-        // Verifica se um aplicativo é crítico para o sistema e não deve ser bloqueado
-        private boolean isCriticalSystemApp(String packageName) {
-            String[] criticalSystemApps = {
-                    "com.android.systemui",
-                    "android",
-                    "com.android.phone",
-                    "com.android.settings",
-                    "com.android.launcher",
-                    "com.android.dialer",
-                    "com.google.android.gms",
-                    "com.android.packageinstaller",
-                    "com.android.launcher3",
-                    "com.sec.android.app.launcher",
-                    "com.android.emergency",
-                    "com.android.incallui"
-            };
-
-            for (String criticalApp : criticalSystemApps) {
-                if (packageName.equals(criticalApp) || packageName.startsWith(criticalApp + ".")) {
-                    return true;
-                }
-            }
-            return false;
+    // Callback chamado quando um app é marcado/desmarcado para bloqueio; guarda a cópia com
+    // a nova marcação na lista da activity
+    private void onAppToggled(AppInfo appInfo, boolean isBlocked) {
+        int index = appList.indexOf(appInfo);
+        if (index >= 0) {
+            appList.set(index, appInfo);
         }
 
-        // Verifica se um aplicativo possui uma intent de launcher
-        private boolean hasLauncherIntent(String packageName) {
-            try {
-                Intent launchIntent = getPackageManager().getLaunchIntentForPackage(packageName);
-                return launchIntent != null;
-            } catch (Exception e) {
-                return false;
-            }
+        if (isBlocked) {
+            preferences.addBlockedApp(appInfo.packageName);
+        } else {
+            preferences.removeBlockedApp(appInfo.packageName);
         }
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+package com.example.safemode;
+
+/**
+ * Tabela de tamanho fixo que agrupa eventos repetidos do mesmo pacote.
+ * Uma abertura de app costuma gerar vários TYPE_WINDOW_STATE_CHANGED seguidos (splash,
+ * activity principal, diálogos); a primeira decisão é registrada e as repetições dentro
+ * da janela configurada são descartadas. Usa endereçamento aberto com sondagem linear
+ * sobre arrays primitivos, sem alocar memória por evento. Não é thread-safe: deve ser
+ * usada apenas pela thread principal do serviço de acessibilidade.
+ */
+final class BlockDebouncer {
+
+    static final byte DECISION_NONE = 0;
+    static final byte DECISION_ALLOW = 1;
+    static final byte DECISION_BLOCK = 2;
+    private static final int MAX_PROBES = 8;
+    private final int mask;
+    private final String[] packages;
+    private final int[] hashes;
+    private final long[] decisionTimes;
+    private final byte[] decisions;
+
+    // Cria a tabela com capacidade arredondada para a próxima potência de dois
+    BlockDebouncer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, MAX_PROBES) - 1) << 1;
+        mask = size - 1;
+        packages = new String[size];
+        hashes = new int[size];
+        decisionTimes = new long[size];
+        decisions = new byte[size];
+    }
+
+    // Retorna a decisão registrada para o pacote dentro da janela, ou DECISION_NONE
+    byte lookup(String packageName, long now, long windowMs) {
+        if (windowMs <= 0) {
+            return DECISION_NONE;
+        }
+
+        int hash = packageName.hashCode();
+        int index = mix(hash) & mask;
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (index + probe) & mask;
+
+            if (packages[slot] == null) {
+                return DECISION_NONE;
+            }
+
+            if (hashes[slot] == hash && packageName.equals(packages[slot])) {
+                if (now - decisionTimes[slot] <= windowMs) {
+                    return decisions[slot];
+                }
+                return DECISION_NONE;
+            }
+        }
+
+        return DECISION_NONE;
+    }
+
+    // Registra a decisão tomada para o pacote, substituindo a entrada mais antiga se preciso
+    void record(String packageName, long now, byte decision) {
+        int hash = packageName.hashCode();
+        int index = mix(hash) & mask;
+        int oldestSlot = index;
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (index + probe) & mask;
+
+            if (packages[slot] == null
+                    || (hashes[slot] == hash && packageName.equals(packages[slot]))) {
+                store(slot, packageName, hash, now, decision);
+                return;
+            }
+
+            if (decisionTimes[slot] < decisionTimes[oldestSlot]) {
+                oldestSlot = slot;
+            }
+        }
+
+        store(oldestSlot, packageName, hash, now, decision);
+    }
+
+    // Descarta a decisão do pacote, usado quando outra janela passa para o primeiro plano.
+    // A entrada continua ocupando o slot para não quebrar a sequência de sondagem.
+    void forget(String packageName) {
+        int hash = packageName.hashCode();
+        int index = mix(hash) & mask;
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (index + probe) & mask;
+
+            if (packages[slot] == null) {
+                return;
+            }
+
+            if (hashes[slot] == hash && packageName.equals(packages[slot])) {
+                decisions[slot] = DECISION_NONE;
+                return;
+            }
+        }
+    }
+
+    // Descarta todas as decisões, usado quando a política muda
+    void clear() {
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = null;
+            decisions[i] = DECISION_NONE;
+        }
+    }
+
+    // Grava a entrada no slot informado
+    private void store(int slot, String packageName, int hash, long now, byte decision) {
+        packages[slot] = packageName;
+        hashes[slot] = hash;
+        decisionTimes[slot] = now;
+        decisions[slot] = decision;
+    }
+
+    // Espalha os bits do hash para reduzir colisões em tabelas pequenas
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.safemode;
+
+import android.location.Location;
+
+/**
+ * Regra única que decide se um aplicativo deve ser bloqueado.
+ * Usada pelo SafeModeAccessibilityService quando um app vem para o primeiro plano e pelo
+ * SafeModeLauncherActivity antes de abrir um app, para que os dois apliquem exatamente a
+ * mesma política. A decisão usa só a PolicySnapshot e a última localização conhecida;
+ * quando essa localização está ausente ou antiga, o resultado indica que ela deve ser
+ * atualizada. Cada instância reutiliza o seu próprio resultado de consulta ao ZoneIndex e
+ * deve ser usada por uma única thread.
+ */
+public final class BlockDecisionEngine {
+
+    public static final int ALLOW = 0;
+    public static final int BLOCK = 1;
+    public static final int ALLOW_REFRESH_LOCATION = 2;
+    public static final int BLOCK_REFRESH_LOCATION = 3;
+    static final long LOCATION_MAX_AGE = LocationHub.LOCATION_MAX_AGE;
+    private final String ownPackageName;
+    private final ZoneIndex.Query zoneQuery = new ZoneIndex.Query();
+
+    // Construtor que recebe o pacote do próprio SafeMode, que nunca é bloqueado
+    public BlockDecisionEngine(String ownPackageName) {
+        this.ownPackageName = ownPackageName;
+    }
+
+    // Retorna se a decisão é de bloqueio
+    public static boolean isBlock(int decision) {
+        return decision == BLOCK || decision == BLOCK_REFRESH_LOCATION;
+    }
+
+    // Retorna se a decisão pede uma nova leitura de localização
+    public static boolean needsLocationRefresh(int decision) {
+        return decision == ALLOW_REFRESH_LOCATION || decision == BLOCK_REFRESH_LOCATION;
+    }
+
+    // Retorna se o pacote está fora do alcance da política (modo desligado, o próprio app ou protegido)
+    public boolean isExempt(PolicySnapshot policy, String packageName) {
+        return !policy.safeModeEnabled
+                || packageName.equals(ownPackageName)
+                || policy.isProtectedApp(packageName);
+    }
+
+    // Decide se o app deve ser bloqueado: apps ocultos no modo de ocultação sempre são,
+    // apps bloqueados dependem da localização e os demais são liberados
+    public int decide(PolicySnapshot policy, String packageName, Location location) {
+        if (isExempt(policy, packageName)) {
+            return ALLOW;
+        }
+
+        if (policy.hideModeActive && policy.isAppHidden(packageName)) {
+            return BLOCK;
+        }
+
+        if (!policy.isAppBlocked(packageName)) {
+            return ALLOW;
+        }
+
+        return decideByLocation(policy, packageName, location);
+    }
+
+    // Decide um app bloqueado com a localização informada, sem esperar por uma nova leitura
+    public int decideByLocation(PolicySnapshot policy, String packageName, Location location) {
+        if (!policy.locationEnabled || !policy.hasAllowedArea()) {
+            return BLOCK;
+        }
+
+        if (location == null) {
+            return policy.locationFailClosed ? BLOCK_REFRESH_LOCATION : ALLOW_REFRESH_LOCATION;
+        }
+
+        boolean isOutside = isOutsideAllowedArea(policy, packageName, location);
+        boolean isStale = System.currentTimeMillis() - location.getTime() > LOCATION_MAX_AGE;
+
+        if (isOutside) {
+            return isStale ? BLOCK_REFRESH_LOCATION : BLOCK;
+        }
+        return isStale ? ALLOW_REFRESH_LOCATION : ALLOW;
+    }
+
+    // Verifica se a localização informada está fora de todas as áreas que liberam o app
+    public boolean isOutsideAllowedArea(PolicySnapshot policy, String packageName, Location location) {
+        policy.zones.query(location.getLatitude(), location.getLongitude(), packageName, zoneQuery);
+        return !zoneQuery.isInside();
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.safemode;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escritor assíncrono dos eventos de bloqueio.
+ * Quem registra um bloqueio apenas enfileira o evento em uma fila sem locks; uma thread
+ * dedicada consome a fila e grava os eventos em lotes no BlockLogStore, sincronizando o
+ * arquivo uma única vez por lote. A thread dorme sem prazo enquanto a fila está vazia; o
+ * primeiro evento a acorda e arma o prazo, e o lote é gravado quando atinge BATCH_SIZE
+ * eventos ou quando passam FLUSH_INTERVAL_MS. As estatísticas agregadas do BlockStatsStore
+ * são atualizadas só com os eventos que o lote de fato gravou.
+ */
+public class BlockEventWriter {
+
+    private static final int BATCH_SIZE = 32;
+    private static final long FLUSH_INTERVAL_MS = 2000;
+    private static volatile BlockEventWriter instance;
+    private final Context context;
+    private final ConcurrentLinkedQueue<BlockLogEntry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Object drainLock = new Object();
+    private final Thread writerThread;
+
+    // Construtor privado que inicia a thread de gravação
+    private BlockEventWriter(Context context) {
+        this.context = context;
+        writerThread = new Thread(this::runWriter, "BlockEventWriter");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    // Retorna a instância única do escritor
+    public static BlockEventWriter getInstance(Context context) {
+        if (instance == null) {
+            synchronized (BlockEventWriter.class) {
+                if (instance == null) {
+                    instance = new BlockEventWriter(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Enfileira um evento de bloqueio sem tocar em disco nem no PackageManager
+    public void enqueue(String packageName, long timestamp) {
+        queue.offer(new BlockLogEntry(packageName, timestamp));
+
+        int pending = pendingCount.incrementAndGet();
+        if (pending == 1 || pending == BATCH_SIZE) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    // Grava imediatamente todos os eventos pendentes, usado em leituras, onTrimMemory e desligamento
+    public void flush() {
+        drain();
+    }
+
+    // Laço da thread de gravação: dorme até o primeiro evento e grava quando o prazo
+    // aberto por ele vence ou quando um lote fica cheio
+    private void runWriter() {
+        while (true) {
+            if (pendingCount.get() == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+            int pending = pendingCount.get();
+
+            while (pending > 0 && pending < BATCH_SIZE) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+                pending = pendingCount.get();
+            }
+
+            try {
+                drain();
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    // Consome a fila e grava os eventos em lotes, com uma sincronização de arquivo por lote
+    private void drain() {
+        synchronized (drainLock) {
+            if (queue.isEmpty()) {
+                return;
+            }
+
+            BlockLogStore store;
+            try {
+                store = BlockLogStore.getInstance(context);
+            } catch (Exception e) {
+                discardPending();
+                return;
+            }
+
+            BlockStatsStore stats = BlockStatsStore.getInstance(context);
+
+            List<BlockLogEntry> batch = new ArrayList<>(BATCH_SIZE);
+            BlockLogEntry entry;
+
+            while ((entry = queue.poll()) != null) {
+                pendingCount.decrementAndGet();
+                batch.add(entry);
+
+                if (batch.size() == BATCH_SIZE) {
+                    stats.recordAll(store.appendAll(batch));
+                    batch.clear();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                stats.recordAll(store.appendAll(batch));
+            }
+
+            stats.persist();
+        }
+    }
+
+    // Descarta os eventos pendentes quando o armazenamento não pode ser aberto
+    private void discardPending() {
+        while (queue.poll() != null) {
+            pendingCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.safemode;
+
+/**
+ * Classe de modelo que representa um registro de bloqueio no histórico.
+ * Guarda apenas o pacote bloqueado e o momento do bloqueio; nome do app e horário
+ * formatado são resolvidos somente na hora de exibir.
+ */
+public class BlockLogEntry {
+
+    public final String packageName;
+    public final long timestamp;
+
+    // Construtor que inicializa o registro com o pacote e o timestamp do bloqueio
+    public BlockLogEntry(String packageName, long timestamp) {
+        this.packageName = packageName;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.safemode;
+
+import java.util.List;
+
+/**
+ * Página de resultados de uma consulta ao histórico de bloqueios.
+ * Contém os registros decodificados da página, do mais recente para o mais antigo, e o
+ * cursor a ser passado na próxima consulta (NO_MORE_PAGES quando não há mais registros).
+ * FIRST_PAGE e NO_MORE_PAGES são valores distintos: repassar NO_MORE_PAGES a uma nova
+ * consulta devolve uma página vazia em vez de recomeçar do início.
+ */
+public class BlockLogPage {
+
+    public static final long NO_MORE_PAGES = Long.MIN_VALUE;
+    public static final long FIRST_PAGE = Long.MAX_VALUE;
+    public final List<BlockLogEntry> entries;
+    public final long nextCursor;
+
+    // Construtor que inicializa a página com os registros e o próximo cursor
+    public BlockLogPage(List<BlockLogEntry> entries, long nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    // Retorna se existe uma próxima página
+    public boolean hasMore() {
+        return nextCursor != NO_MORE_PAGES;
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Armazenamento binário do histórico de bloqueios.
+ * Os registros têm tamanho fixo e ficam em um buffer circular dentro de um arquivo
+ * mapeado em memória, de forma que cada novo bloqueio é gravado em O(1) sem reescrever
+ * o histórico. O cabeçalho guarda a sequência total de registros gravados, e o slot de
+ * cada registro é a sua sequência módulo a capacidade. Como os registros ficam em ordem
+ * de tempo, consultas por período usam busca binária e decodificam só a página pedida.
+ * Cada registro guarda apenas o timestamp e o identificador do pacote no PackageDictionary,
+ * ocupando 12 bytes; nomes de apps e datas legíveis são resolvidos só na exibição.
+ */
+public class BlockLogStore {
+
+    private static final String FILE_NAME = "block_log.bin";
+    private static final String LEGACY_PREF_NAME = "BlockLog";
+    private static final String LEGACY_KEY_LOG_ENTRIES = "log_entries";
+    private static final int MAGIC = 0x534D4C47;
+    private static final int FORMAT_VERSION = 2;
+    private static final int CAPACITY = 10000;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 12;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_RECORD_SIZE = 12;
+    private static final int OFFSET_NEXT_SEQUENCE = 16;
+    private static volatile BlockLogStore instance;
+    private final MappedByteBuffer buffer;
+    private final PackageDictionary dictionary;
+    private long nextSequence;
+
+    // Construtor privado que abre ou cria o arquivo e migra o histórico antigo das preferências
+    private BlockLogStore(Context context) throws Exception {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        long fileSize = HEADER_SIZE + (long) CAPACITY * RECORD_SIZE;
+
+        dictionary = PackageDictionary.getInstance(context);
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            if (randomAccessFile.length() != fileSize) {
+                randomAccessFile.setLength(fileSize);
+            }
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+
+        if (!isHeaderValid()) {
+            writeEmptyHeader();
+        }
+
+        nextSequence = buffer.getLong(OFFSET_NEXT_SEQUENCE);
+
+        migrateFromPreferences(context);
+    }
+
+    // Retorna a instância única do armazenamento
+    public static BlockLogStore getInstance(Context context) throws Exception {
+        if (instance == null) {
+            synchronized (BlockLogStore.class) {
+                if (instance == null) {
+                    instance = new BlockLogStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Grava um novo registro no próximo slot do buffer circular
+    public synchronized void append(String packageName, long timestamp) {
+        if (writeRecord(slotOf(nextSequence), packageName, timestamp)) {
+            nextSequence++;
+            buffer.putLong(OFFSET_NEXT_SEQUENCE, nextSequence);
+        }
+    }
+
+    // Grava um lote de registros e sincroniza o arquivo uma única vez ao final.
+    // Retorna os registros efetivamente gravados, sem os que o dicionário não conseguiu mapear.
+    public synchronized List<BlockLogEntry> appendAll(List<BlockLogEntry> entries) {
+        List<BlockLogEntry> written = new ArrayList<>(entries.size());
+
+        for (BlockLogEntry entry : entries) {
+            if (writeRecord(slotOf(nextSequence), entry.packageName, entry.timestamp)) {
+                nextSequence++;
+                written.add(entry);
+            }
+        }
+
+        buffer.putLong(OFFSET_NEXT_SEQUENCE, nextSequence);
+        buffer.force();
+        return written;
+    }
+
+    // Retorna a quantidade de registros disponíveis
+    public synchronized int size() {
+        return (int) Math.min(nextSequence, CAPACITY);
+    }
+
+    // Retorna todos os registros, do mais recente para o mais antigo
+    public synchronized List<BlockLogEntry> getAll() {
+        return scanRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    // Retorna todos os registros do período informado, do mais recente para o mais antigo
+    public synchronized List<BlockLogEntry> scanRange(long startTime, long endTime) {
+        return query(startTime, endTime, Integer.MAX_VALUE, BlockLogPage.FIRST_PAGE).entries;
+    }
+
+    // Retorna uma página de registros do período, do mais recente para o mais antigo.
+    // O cursor é a sequência a partir da qual a página começa (exclusiva); use
+    // BlockLogPage.FIRST_PAGE na primeira consulta e o nextCursor retornado nas seguintes;
+    // NO_MORE_PAGES devolve uma página vazia. Apenas os registros da página são decodificados.
+    public synchronized BlockLogPage query(long startTime, long endTime, int limit, long cursor) {
+        if (cursor == BlockLogPage.NO_MORE_PAGES) {
+            return new BlockLogPage(new ArrayList<>(), BlockLogPage.NO_MORE_PAGES);
+        }
+
+        long lower = lowerBound(startTime);
+        long upper = Math.min(upperBound(endTime), cursor);
+
+        List<BlockLogEntry> entries = new ArrayList<>((int) Math.max(0, Math.min(limit, upper - lower)));
+        long sequence = upper - 1;
+
+        while (sequence >= lower && entries.size() < limit) {
+            int offset = recordOffset(slotOf(sequence));
+            String packageName = dictionary.nameOf(buffer.getInt(offset + 8));
+
+            if (packageName != null) {
+                entries.add(new BlockLogEntry(packageName, buffer.getLong(offset)));
+            }
+            sequence--;
+        }
+
+        long nextCursor = sequence >= lower ? sequence + 1 : BlockLogPage.NO_MORE_PAGES;
+        return new BlockLogPage(entries, nextCursor);
+    }
+
+    // Retorna quantos registros existem no período informado sem decodificá-los
+    public synchronized int count(long startTime, long endTime) {
+        return (int) Math.max(0, upperBound(endTime) - lowerBound(startTime));
+    }
+
+    // Apaga todos os registros
+    public synchronized void clear() {
+        nextSequence = 0;
+        buffer.putLong(OFFSET_NEXT_SEQUENCE, 0);
+    }
+
+    // Busca binária pela primeira sequência com timestamp maior ou igual ao informado.
+    // Os registros são gravados na ordem em que acontecem, então a coluna de timestamps
+    // é crescente; um ajuste manual do relógio afeta apenas os registros ao seu redor.
+    private long lowerBound(long timestamp) {
+        long low = nextSequence - size();
+        long high = nextSequence;
+
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (timestampAt(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // Busca binária pela primeira sequência com timestamp maior que o informado
+    private long upperBound(long timestamp) {
+        long low = nextSequence - size();
+        long high = nextSequence;
+
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (timestampAt(middle) <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    // Lê apenas o timestamp de uma sequência
+    private long timestampAt(long sequence) {
+        return buffer.getLong(recordOffset(slotOf(sequence)));
+    }
+
+    // Verifica se o cabeçalho do arquivo corresponde ao formato atual
+    private boolean isHeaderValid() {
+        return buffer.getInt(OFFSET_MAGIC) == MAGIC
+                && buffer.getInt(OFFSET_VERSION) == FORMAT_VERSION
+                && buffer.getInt(OFFSET_CAPACITY) == CAPACITY
+                && buffer.getInt(OFFSET_RECORD_SIZE) == RECORD_SIZE
+                && buffer.getLong(OFFSET_NEXT_SEQUENCE) >= 0;
+    }
+
+    // Escreve um cabeçalho vazio para um arquivo novo ou incompatível
+    private void writeEmptyHeader() {
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, FORMAT_VERSION);
+        buffer.putInt(OFFSET_CAPACITY, CAPACITY);
+        buffer.putInt(OFFSET_RECORD_SIZE, RECORD_SIZE);
+        buffer.putLong(OFFSET_NEXT_SEQUENCE, 0);
+    }
+
+    // Grava timestamp e identificador do pacote no slot informado. Retorna false sem gravar
+    // nada quando o pacote não pôde ser registrado no dicionário, para que todo registro
+    // contado por count() também seja devolvido por query().
+    private boolean writeRecord(int slot, String packageName, long timestamp) {
+        int packageId = dictionary.idOf(packageName);
+        if (packageId < 0) {
+            return false;
+        }
+
+        int offset = recordOffset(slot);
+
+        buffer.putLong(offset, timestamp);
+        buffer.putInt(offset + 8, packageId);
+        return true;
+    }
+
+    // Retorna o slot do buffer circular para uma sequência
+    private int slotOf(long sequence) {
+        return (int) (sequence % CAPACITY);
+    }
+
+    // Retorna a posição do registro no arquivo
+    private int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    // Migra uma única vez o histórico antigo em JSON salvo nas SharedPreferences
+    private void migrateFromPreferences(Context context) {
+        SharedPreferences legacy = context.getSharedPreferences(LEGACY_PREF_NAME, Context.MODE_PRIVATE);
+        String jsonString = legacy.getString(LEGACY_KEY_LOG_ENTRIES, null);
+
+        if (jsonString == null) {
+            return;
+        }
+
+        try {
+            JSONArray jsonArray = new JSONArray(jsonString);
+
+            for (int i = jsonArray.length() - 1; i >= 0; i--) {
+                JSONObject entry = jsonArray.getJSONObject(i);
+                String packageName = entry.optString("package_name", null);
+                long timestamp = entry.optLong("timestamp", 0);
+
+                if (packageName != null && timestamp > 0) {
+                    append(packageName, timestamp);
+                }
+            }
+
+        } catch (Exception e) {
+        }
+
+        legacy.edit().remove(LEGACY_KEY_LOG_ENTRIES).apply();
+    }
+}
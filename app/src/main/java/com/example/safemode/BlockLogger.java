@@ -1,108 +1,150 @@
 package com.example.safemode;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Classe responsável por registrar e gerenciar logs de bloqueios de aplicativos.
- * Armazena histórico de bloqueios, estatísticas e permite consultas por período.
+ * Armazena histórico de bloqueios no BlockLogStore, lê estatísticas agregadas do
+ * BlockStatsStore e permite consultas por período. Os armazenamentos só são abertos na
+ * primeira leitura, que pode migrar o histórico ou reconstruir as estatísticas; por isso
+ * as leituras devem ser feitas fora da thread principal.
  */
 public class BlockLogger {
 
-    private static final String PREF_NAME = "BlockLog";
-    private static final String KEY_LOG_ENTRIES = "log_entries";
-    private static final int MAX_LOG_ENTRIES = 1000;
+    private static final ThreadLocal<SimpleDateFormat> TIMESTAMP_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("dd/MM/yyyy HH:mm:ss", Locale.getDefault());
+        }
+    };
     private final Context context;
-    private final SharedPreferences preferences;
+    private final BlockEventWriter writer;
+    private BlockLogStore store;
+    private BlockStatsStore statsStore;
+    private boolean storesOpened = false;
 
-    // Construtor que inicializa o logger com contexto e SharedPreferences
+    // Construtor que inicializa o logger com contexto e o escritor assíncrono, sem tocar em disco
     public BlockLogger(Context context) {
         this.context = context;
-        this.preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        this.writer = BlockEventWriter.getInstance(context);
     }
 
-    // Registra um bloqueio de aplicativo com timestamp
+    // Registra um bloqueio de aplicativo com timestamp, gravado em background
     public void logBlock(String packageName, long timestamp) {
-        try {
-            JSONObject logEntry = new JSONObject();
-            logEntry.put("package_name", packageName);
-            logEntry.put("timestamp", timestamp);
-            logEntry.put("app_name", getAppName(packageName));
-            logEntry.put("readable_time", formatTimestamp(timestamp));
-
-            List<JSONObject> existingLogs = getLogEntries();
+        writer.enqueue(packageName, timestamp);
+    }
 
-            existingLogs.add(0, logEntry);
+    // Retorna todas as entradas de log armazenadas
+    public List<JSONObject> getLogEntries() {
+        BlockLogStore logStore = getStore();
+        if (logStore == null) {
+            return new ArrayList<>();
+        }
+        writer.flush();
+        return toJson(logStore.getAll());
+    }
 
-            if (existingLogs.size() > MAX_LOG_ENTRIES) {
-                existingLogs = existingLogs.subList(0, MAX_LOG_ENTRIES);
-            }
+    // Retorna entradas de log filtradas por período de tempo
+    public List<JSONObject> getLogEntriesInPeriod(long startTime, long endTime) {
+        BlockLogStore logStore = getStore();
+        if (logStore == null) {
+            return new ArrayList<>();
+        }
+        writer.flush();
+        return toJson(logStore.scanRange(startTime, endTime));
+    }
 
-            saveLogEntries(existingLogs);
+    // Retorna uma página do histórico do período, decodificando apenas os registros da página
+    public BlockLogPage query(long startTime, long endTime, int limit, long cursor) {
+        BlockLogStore logStore = getStore();
+        if (logStore == null) {
+            return new BlockLogPage(new ArrayList<>(), BlockLogPage.NO_MORE_PAGES);
+        }
+        writer.flush();
+        return logStore.query(startTime, endTime, limit, cursor);
+    }
 
-        } catch (JSONException e) {
+    // Retorna quantos bloqueios existem no período sem carregar os registros
+    public int countInPeriod(long startTime, long endTime) {
+        BlockLogStore logStore = getStore();
+        if (logStore == null) {
+            return 0;
         }
+        writer.flush();
+        return logStore.count(startTime, endTime);
     }
 
-    // Retorna todas as entradas de log armazenadas
-    public List<JSONObject> getLogEntries() {
-        List<JSONObject> entries = new ArrayList<>();
+    // Retorna estatísticas de bloqueios do dia atual
+    public JSONObject getTodayStats() {
+        JSONObject stats = new JSONObject();
 
         try {
-            String jsonString = preferences.getString(KEY_LOG_ENTRIES, "[]");
-            JSONArray jsonArray = new JSONArray(jsonString);
+            JSONObject periodStats = getPeriodStats(1);
 
-            for (int i = 0; i < jsonArray.length(); i++) {
-                entries.add(jsonArray.getJSONObject(i));
-            }
+            stats.put("total_blocks_today", periodStats.optInt("total_blocks", 0));
+            stats.put("apps_blocked_today", periodStats.optInt("apps_blocked", 0));
+            stats.put("most_blocked_app", periodStats.optString("most_blocked_app", "Nenhum"));
 
         } catch (JSONException e) {
         }
 
-        return entries;
+        return stats;
     }
 
-    // Retorna entradas de log filtradas por período de tempo
-    public List<JSONObject> getLogEntriesInPeriod(long startTime, long endTime) {
-        List<JSONObject> allEntries = getLogEntries();
-        List<JSONObject> filteredEntries = new ArrayList<>();
+    // Retorna estatísticas de bloqueios dos últimos 7 dias
+    public JSONObject getWeekStats() {
+        return getPeriodStats(7);
+    }
 
-        try {
-            for (JSONObject entry : allEntries) {
-                long timestamp = entry.getLong("timestamp");
-                if (timestamp >= startTime && timestamp <= endTime) {
-                    filteredEntries.add(entry);
-                }
+    // Retorna estatísticas de bloqueios dos últimos 30 dias
+    public JSONObject getMonthStats() {
+        return getPeriodStats(30);
+    }
+
+    // Retorna os apps mais bloqueados nos últimos dias, com nome e quantidade de bloqueios
+    public List<JSONObject> getTopBlockedApps(int days, int limit) {
+        List<JSONObject> result = new ArrayList<>();
+        writer.flush();
+
+        for (Map.Entry<String, Integer> entry : getStatsStore().getTopBlockedApps(days, limit)) {
+            try {
+                JSONObject app = new JSONObject();
+                app.put("package_name", entry.getKey());
+                app.put("app_name", getAppName(entry.getKey()));
+                app.put("count", entry.getValue());
+                result.add(app);
+            } catch (JSONException e) {
             }
-        } catch (JSONException e) {
         }
 
-        return filteredEntries;
+        return result;
     }
 
-    // Retorna estatísticas de bloqueios do dia atual
-    public JSONObject getTodayStats() {
+    // Monta as estatísticas de um período a partir dos contadores agregados
+    private JSONObject getPeriodStats(int days) {
         JSONObject stats = new JSONObject();
 
         try {
-            long startOfDay = getStartOfDay(System.currentTimeMillis());
-            long endOfDay = startOfDay + (24 * 60 * 60 * 1000);
+            writer.flush();
+            BlockStatsStore counters = getStatsStore();
 
-            List<JSONObject> todayEntries = getLogEntriesInPeriod(startOfDay, endOfDay);
+            List<Map.Entry<String, Integer>> topApps = counters.getTopBlockedApps(days, 1);
+            String mostBlockedApp = topApps.isEmpty() ? "Nenhum" : getAppName(topApps.get(0).getKey());
 
-            stats.put("total_blocks_today", todayEntries.size());
-            stats.put("apps_blocked_today", getUniqueAppsCount(todayEntries));
-            stats.put("most_blocked_app", getMostBlockedApp(todayEntries));
+            stats.put("total_blocks", counters.getTotal(days));
+            stats.put("apps_blocked", counters.getUniqueAppsCount(days));
+            stats.put("most_blocked_app", mostBlockedApp);
 
         } catch (JSONException e) {
         }
@@ -112,92 +154,76 @@ public class BlockLogger {
 
     // Limpa todos os logs armazenados
     public void clearAllLogs() {
-        preferences.edit().remove(KEY_LOG_ENTRIES).apply();
+        writer.flush();
+        BlockLogStore logStore = getStore();
+        if (logStore != null) {
+            logStore.clear();
+        }
+        getStatsStore().clear();
     }
 
-    // Salva a lista de entradas de log nas SharedPreferences
-    private void saveLogEntries(List<JSONObject> entries) {
-        try {
-            JSONArray jsonArray = new JSONArray();
-            for (JSONObject entry : entries) {
-                jsonArray.put(entry);
-            }
+    // Retorna o armazenamento binário do histórico, abrindo-o na primeira chamada
+    private BlockLogStore getStore() {
+        openStores();
+        return store;
+    }
 
-            preferences.edit()
-                    .putString(KEY_LOG_ENTRIES, jsonArray.toString())
-                    .apply();
+    // Retorna as estatísticas agregadas, abrindo-as na primeira chamada
+    private BlockStatsStore getStatsStore() {
+        openStores();
+        return statsStore;
+    }
 
-        } catch (Exception e) {
+    // Abre o histórico e as estatísticas uma única vez
+    private synchronized void openStores() {
+        if (storesOpened) {
+            return;
         }
-    }
 
-    // Retorna o nome do aplicativo a partir do package name
-    private String getAppName(String packageName) {
         try {
-            android.content.pm.PackageManager pm = context.getPackageManager();
-            android.content.pm.ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-            return pm.getApplicationLabel(appInfo).toString();
-
+            store = BlockLogStore.getInstance(context);
         } catch (Exception e) {
-            return packageName;
+            store = null;
         }
+        statsStore = BlockStatsStore.getInstance(context);
+        storesOpened = true;
     }
 
-    // Formata um timestamp em string legível
-    private String formatTimestamp(long timestamp) {
-        SimpleDateFormat formatter = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss", Locale.getDefault());
-        return formatter.format(new Date(timestamp));
-    }
-
-    // Retorna o timestamp do início do dia (00:00:00)
-    private long getStartOfDay(long timestamp) {
-        java.util.Calendar calendar = java.util.Calendar.getInstance();
-        calendar.setTimeInMillis(timestamp);
-        calendar.set(java.util.Calendar.HOUR_OF_DAY, 0);
-        calendar.set(java.util.Calendar.MINUTE, 0);
-        calendar.set(java.util.Calendar.SECOND, 0);
-        calendar.set(java.util.Calendar.MILLISECOND, 0);
-        return calendar.getTimeInMillis();
-    }
+    // Converte os registros para o formato JSON usado pelas telas, resolvendo nomes apenas uma vez por pacote
+    private List<JSONObject> toJson(List<BlockLogEntry> entries) {
+        List<JSONObject> result = new ArrayList<>(entries.size());
+        Map<String, String> appNames = new HashMap<>();
+
+        for (BlockLogEntry entry : entries) {
+            try {
+                String appName = appNames.get(entry.packageName);
+                if (appName == null) {
+                    appName = getAppName(entry.packageName);
+                    appNames.put(entry.packageName, appName);
+                }
 
-    // Retorna a contagem de aplicativos únicos nas entradas
-    private int getUniqueAppsCount(List<JSONObject> entries) {
-        java.util.Set<String> uniqueApps = new java.util.HashSet<>();
+                JSONObject logEntry = new JSONObject();
+                logEntry.put("package_name", entry.packageName);
+                logEntry.put("timestamp", entry.timestamp);
+                logEntry.put("app_name", appName);
+                logEntry.put("readable_time", formatTimestamp(entry.timestamp));
+                result.add(logEntry);
 
-        try {
-            for (JSONObject entry : entries) {
-                uniqueApps.add(entry.getString("package_name"));
+            } catch (JSONException e) {
             }
-        } catch (JSONException e) {
         }
 
-        return uniqueApps.size();
+        return result;
     }
 
-    // Retorna o nome do aplicativo mais bloqueado nas entradas
-    private String getMostBlockedApp(List<JSONObject> entries) {
-        java.util.Map<String, Integer> appCounts = new java.util.HashMap<>();
-
-        try {
-            for (JSONObject entry : entries) {
-                String packageName = entry.getString("package_name");
-                appCounts.put(packageName, appCounts.getOrDefault(packageName, 0) + 1);
-            }
-
-            String mostBlockedApp = null;
-            int maxCount = 0;
-
-            for (java.util.Map.Entry<String, Integer> entry : appCounts.entrySet()) {
-                if (entry.getValue() > maxCount) {
-                    maxCount = entry.getValue();
-                    mostBlockedApp = entry.getKey();
-                }
-            }
-
-            return mostBlockedApp != null ? getAppName(mostBlockedApp) : "Nenhum";
+    // Retorna o nome do aplicativo a partir do package name, usando o cache compartilhado
+    public String getAppName(String packageName) {
+        String appName = AppLabelCache.getInstance(context).getLabel(packageName);
+        return appName != null ? appName : packageName;
+    }
 
-        } catch (JSONException e) {
-            return "Erro";
-        }
+    // Formata um timestamp em string legível, reaproveitando o formatador da thread atual
+    public String formatTimestamp(long timestamp) {
+        return TIMESTAMP_FORMAT.get().format(new Date(timestamp));
     }
-}
\ No newline at end of file
+}
@@ -266,21 +266,8 @@ public class BlockOverlayService extends Service {
         }
     }
 
-    // Retorna o nome do aplicativo a partir do package name
+    // Retorna o nome exibido no overlay, que sempre se apresenta como falha do sistema
     private String getAppName(String packageName) {
-        if (packageName == null || packageName.isEmpty()) {
-            return "Sistema Android";
-        }
-
-        try {
-            android.content.pm.PackageManager pm = getPackageManager();
-            android.content.pm.ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-            String appName = pm.getApplicationLabel(appInfo).toString();
-
-            return "Sistema Android";
-
-        } catch (Exception e) {
-            return "Sistema Android";
-        }
+        return "Sistema Android";
     }
 }
\ No newline at end of file
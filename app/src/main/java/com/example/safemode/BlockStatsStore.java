@@ -0,0 +1,286 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Estatísticas agregadas do histórico de bloqueios.
+ * Mantém contadores por dia, por hora e por pacote dos últimos DAYS_RETAINED dias,
+ * atualizados à medida que os eventos são gravados no BlockLogStore e salvos em um
+ * arquivo ao lado do log. Assim as consultas de hoje, semana e mês leem apenas os
+ * contadores, sem percorrer o histórico.
+ */
+public class BlockStatsStore {
+
+    public static final int DAYS_RETAINED = 31;
+    private static final String FILE_NAME = "block_stats.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static volatile BlockStatsStore instance;
+    private final AtomicFile file;
+    private final DayBucket[] buckets = new DayBucket[DAYS_RETAINED];
+    private boolean dirty = false;
+
+    // Construtor privado que carrega os contadores salvos ou os reconstrói a partir do log
+    private BlockStatsStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+
+        if (!load()) {
+            rebuildFromLog(context);
+        }
+    }
+
+    // Retorna a instância única das estatísticas
+    public static BlockStatsStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (BlockStatsStore.class) {
+                if (instance == null) {
+                    instance = new BlockStatsStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna o dia local (dias desde a época) de um timestamp
+    public static int dayOf(long timestamp) {
+        long local = timestamp + TimeZone.getDefault().getOffset(timestamp);
+        return (int) Math.floorDiv(local, DAY_MILLIS);
+    }
+
+    // Retorna a hora local (0 a 23) de um timestamp
+    private static int hourOf(long timestamp) {
+        long local = timestamp + TimeZone.getDefault().getOffset(timestamp);
+        return (int) (Math.floorMod(local, DAY_MILLIS) / HOUR_MILLIS);
+    }
+
+    // Atualiza os contadores com um lote de eventos recém gravados
+    public synchronized void recordAll(List<BlockLogEntry> entries) {
+        for (BlockLogEntry entry : entries) {
+            record(entry.packageName, entry.timestamp);
+        }
+    }
+
+    // Salva os contadores em disco se houver alterações
+    public synchronized void persist() {
+        if (!dirty) {
+            return;
+        }
+
+        FileOutputStream output = null;
+        try {
+            output = file.startWrite();
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(FORMAT_VERSION);
+
+            int bucketCount = 0;
+            for (DayBucket bucket : buckets) {
+                if (bucket != null) {
+                    bucketCount++;
+                }
+            }
+            data.writeInt(bucketCount);
+
+            for (DayBucket bucket : buckets) {
+                if (bucket == null) {
+                    continue;
+                }
+
+                data.writeInt(bucket.day);
+                data.writeInt(bucket.total);
+                for (int hour = 0; hour < 24; hour++) {
+                    data.writeInt(bucket.hourly[hour]);
+                }
+                data.writeInt(bucket.packageCounts.size());
+                for (Map.Entry<String, int[]> entry : bucket.packageCounts.entrySet()) {
+                    data.writeUTF(entry.getKey());
+                    data.writeInt(entry.getValue()[0]);
+                }
+            }
+
+            data.flush();
+            file.finishWrite(output);
+            dirty = false;
+
+        } catch (Exception e) {
+            if (output != null) {
+                file.failWrite(output);
+            }
+        }
+    }
+
+    // Retorna o total de bloqueios nos últimos "days" dias, incluindo hoje
+    public synchronized int getTotal(int days) {
+        int today = dayOf(System.currentTimeMillis());
+        int total = 0;
+
+        for (int day = today - days + 1; day <= today; day++) {
+            DayBucket bucket = bucketFor(day);
+            if (bucket != null) {
+                total += bucket.total;
+            }
+        }
+
+        return total;
+    }
+
+    // Retorna quantos apps diferentes foram bloqueados nos últimos "days" dias
+    public synchronized int getUniqueAppsCount(int days) {
+        return mergePackageCounts(days).size();
+    }
+
+    // Retorna os pacotes mais bloqueados nos últimos "days" dias, do mais para o menos bloqueado
+    public synchronized List<Map.Entry<String, Integer>> getTopBlockedApps(int days, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(mergePackageCounts(days).entrySet());
+        Collections.sort(entries, (a, b) -> Integer.compare(b.getValue(), a.getValue()));
+
+        if (entries.size() > limit) {
+            return new ArrayList<>(entries.subList(0, limit));
+        }
+        return entries;
+    }
+
+    // Retorna uma cópia dos contadores por hora do dia informado
+    public synchronized int[] getHourlyCounts(int day) {
+        DayBucket bucket = bucketFor(day);
+        return bucket != null ? bucket.hourly.clone() : new int[24];
+    }
+
+    // Apaga todos os contadores, em memória e em disco
+    public synchronized void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = null;
+        }
+        dirty = false;
+        file.delete();
+    }
+
+    // Incrementa os contadores do dia, da hora e do pacote do evento
+    private void record(String packageName, long timestamp) {
+        int day = dayOf(timestamp);
+        int index = Math.floorMod(day, DAYS_RETAINED);
+        DayBucket bucket = buckets[index];
+
+        if (bucket == null || bucket.day < day) {
+            bucket = new DayBucket(day);
+            buckets[index] = bucket;
+        } else if (bucket.day > day) {
+            return;
+        }
+
+        bucket.total++;
+        bucket.hourly[hourOf(timestamp)]++;
+
+        int[] count = bucket.packageCounts.get(packageName);
+        if (count == null) {
+            bucket.packageCounts.put(packageName, new int[]{1});
+        } else {
+            count[0]++;
+        }
+
+        dirty = true;
+    }
+
+    // Soma os contadores por pacote dos últimos "days" dias
+    private Map<String, Integer> mergePackageCounts(int days) {
+        int today = dayOf(System.currentTimeMillis());
+        Map<String, Integer> merged = new HashMap<>();
+
+        for (int day = today - days + 1; day <= today; day++) {
+            DayBucket bucket = bucketFor(day);
+            if (bucket == null) {
+                continue;
+            }
+
+            for (Map.Entry<String, int[]> entry : bucket.packageCounts.entrySet()) {
+                merged.put(entry.getKey(), merged.getOrDefault(entry.getKey(), 0) + entry.getValue()[0]);
+            }
+        }
+
+        return merged;
+    }
+
+    // Retorna o bucket do dia informado, se ainda estiver retido
+    private DayBucket bucketFor(int day) {
+        DayBucket bucket = buckets[Math.floorMod(day, DAYS_RETAINED)];
+        return bucket != null && bucket.day == day ? bucket : null;
+    }
+
+    // Carrega os contadores do arquivo, retornando false se ele não existir ou for inválido
+    private boolean load() {
+        try (FileInputStream input = file.openRead()) {
+            DataInputStream data = new DataInputStream(input);
+
+            if (data.readInt() != FORMAT_VERSION) {
+                return false;
+            }
+
+            int bucketCount = data.readInt();
+            for (int i = 0; i < bucketCount; i++) {
+                DayBucket bucket = new DayBucket(data.readInt());
+                bucket.total = data.readInt();
+                for (int hour = 0; hour < 24; hour++) {
+                    bucket.hourly[hour] = data.readInt();
+                }
+
+                int packageCount = data.readInt();
+                for (int j = 0; j < packageCount; j++) {
+                    String packageName = data.readUTF();
+                    bucket.packageCounts.put(packageName, new int[]{data.readInt()});
+                }
+
+                buckets[Math.floorMod(bucket.day, DAYS_RETAINED)] = bucket;
+            }
+
+            return true;
+
+        } catch (Exception e) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = null;
+            }
+            return false;
+        }
+    }
+
+    // Reconstrói os contadores percorrendo uma única vez o histórico existente
+    private void rebuildFromLog(Context context) {
+        try {
+            long since = System.currentTimeMillis() - DAYS_RETAINED * DAY_MILLIS;
+            List<BlockLogEntry> entries = BlockLogStore.getInstance(context).scanRange(since, Long.MAX_VALUE);
+
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                record(entries.get(i).packageName, entries.get(i).timestamp);
+            }
+
+            dirty = true;
+            persist();
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Contadores de um único dia
+    private static final class DayBucket {
+        final int day;
+        final int[] hourly = new int[24];
+        final Map<String, int[]> packageCounts = new HashMap<>();
+        int total;
+
+        DayBucket(int day) {
+            this.day = day;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.safemode;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+/**
+ * Fonte única de ticks de minuto para relógios na tela.
+ * Usa o ACTION_TIME_TICK do sistema, que chega alinhado à virada de cada minuto, e também
+ * reage a ajustes de hora e de fuso horário. Deve ser iniciado em onStart e parado em
+ * onStop, de forma que nenhum tick é entregue enquanto a tela não está visível e nunca há
+ * mais de um registro ativo. Ao iniciar, entrega um tick imediato marcado como troca de
+ * fuso horário, já que uma troca feita com o receiver desregistrado não é avisada.
+ */
+public class ClockTicker extends BroadcastReceiver {
+
+    private final Context context;
+    private final TickListener listener;
+    private boolean started = false;
+
+    // Construtor que recebe o contexto de registro e quem será avisado a cada minuto
+    public ClockTicker(Context context, TickListener listener) {
+        this.context = context;
+        this.listener = listener;
+    }
+
+    // Passa a receber ticks e atualiza o relógio imediatamente, sincronizando o fuso horário
+    public void start() {
+        if (started) {
+            return;
+        }
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_TIME_TICK);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+
+        try {
+            context.registerReceiver(this, filter);
+            started = true;
+        } catch (Exception e) {
+        }
+
+        listener.onTick(true);
+    }
+
+    // Deixa de receber ticks
+    public void stop() {
+        if (!started) {
+            return;
+        }
+
+        try {
+            context.unregisterReceiver(this);
+        } catch (Exception e) {
+        }
+        started = false;
+    }
+
+    // Repassa o tick, indicando se o fuso horário mudou
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        listener.onTick(Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction()));
+    }
+
+    // Interface de callback chamada na thread principal a cada minuto ou ajuste de hora
+    public interface TickListener {
+        void onTick(boolean timeZoneChanged);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.safemode;
+
+/**
+ * Máquina de estados dentro/fora da área permitida, com histerese.
+ * Cada leitura só conta como evidência quando, mesmo descontando a sua precisão, fica
+ * claramente de um lado da borda: a ENTRY_MARGIN metros para dentro ou a EXIT_MARGIN
+ * metros para fora. Leituras ambíguas não mudam nada. Uma troca de estado só acontece
+ * depois que a evidência do outro lado se mantém por ENTRY_DWELL ou EXIT_DWELL, e uma
+ * leitura do lado atual cancela a troca pendente. O estado começa desconhecido e a primeira
+ * leitura recente o define sem espera; leituras com mais de MAX_FIX_AGE, como uma última
+ * localização conhecida antiga, não mudam o estado e descartam a troca pendente. Os tempos
+ * são de SystemClock.elapsedRealtime, imunes a ajustes do relógio. Deve ser usada por uma
+ * única thread.
+ */
+final class GeofenceStateMachine {
+
+    static final int STATE_UNKNOWN = 0;
+    static final int STATE_INSIDE = 1;
+    static final int STATE_OUTSIDE = 2;
+    private static final float ENTRY_MARGIN = 15;
+    private static final float EXIT_MARGIN = 25;
+    private static final long ENTRY_DWELL = 20000;
+    private static final long EXIT_DWELL = 30000;
+    static final long MAX_FIX_AGE = 60000;
+    private int state = STATE_UNKNOWN;
+    private int candidate = STATE_UNKNOWN;
+    private long candidateSince;
+
+    // Retorna o estado confirmado atual
+    int getState() {
+        return state;
+    }
+
+    // Retorna quanto falta para a troca pendente ser confirmada, ou -1 se não há troca pendente
+    long pendingDelay(long now) {
+        if (candidate == STATE_UNKNOWN) {
+            return -1;
+        }
+
+        long dwell = candidate == STATE_INSIDE ? ENTRY_DWELL : EXIT_DWELL;
+        return Math.max(0, candidateSince + dwell - now);
+    }
+
+    // Volta ao estado desconhecido, usado quando a área permitida muda
+    void reset() {
+        state = STATE_UNKNOWN;
+        candidate = STATE_UNKNOWN;
+    }
+
+    // Processa uma leitura e retorna true se ela confirmou uma troca de estado. depth é a
+    // distância até a borda da área (negativa do lado de fora), innerRadius limita as margens
+    // em áreas pequenas, fixTime é o momento da leitura e now o momento da avaliação.
+    boolean update(float depth, float innerRadius, float accuracy, long fixTime, long now) {
+        if (now - fixTime > MAX_FIX_AGE || fixTime > now) {
+            candidate = STATE_UNKNOWN;
+            return false;
+        }
+
+        float uncertainty = Math.min(Math.max(accuracy, 0), innerRadius / 2);
+        float entryMargin = Math.min(ENTRY_MARGIN, innerRadius / 4);
+        int evidence;
+
+        if (depth - uncertainty >= entryMargin) {
+            evidence = STATE_INSIDE;
+        } else if (-depth - uncertainty > EXIT_MARGIN) {
+            evidence = STATE_OUTSIDE;
+        } else {
+            evidence = STATE_UNKNOWN;
+        }
+
+        if (state == STATE_UNKNOWN) {
+            if (evidence == STATE_UNKNOWN) {
+                evidence = depth < 0 ? STATE_OUTSIDE : STATE_INSIDE;
+            }
+            state = evidence;
+            candidate = STATE_UNKNOWN;
+            return true;
+        }
+
+        if (evidence == STATE_UNKNOWN) {
+            return false;
+        }
+
+        if (evidence == state) {
+            candidate = STATE_UNKNOWN;
+            return false;
+        }
+
+        if (candidate != evidence) {
+            candidate = evidence;
+            candidateSince = fixTime;
+        }
+
+        long dwell = evidence == STATE_INSIDE ? ENTRY_DWELL : EXIT_DWELL;
+        if (now - candidateSince < dwell) {
+            return false;
+        }
+
+        state = evidence;
+        candidate = STATE_UNKNOWN;
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.safemode;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Área permitida, circular ou poligonal, como salva pelo ZoneStore.
+ * Os campos são imutáveis. allowedApps lista os apps bloqueados que ficam liberados dentro
+ * desta área; um conjunto vazio libera todos eles, como acontecia com a área única.
+ * Um polígono é projetado uma única vez em metros num plano tangente ao seu centro, e as
+ * arestas ficam guardadas em arrays com os deslocamentos, a inclinação e o inverso do
+ * quadrado do comprimento já calculados, para que o ZoneIndex avalie um ponto sem alocar
+ * memória. Nele latitude, longitude e radius descrevem o círculo que envolve o polígono.
+ */
+public final class GeofenceZone {
+
+    private static final double METERS_PER_DEGREE = 111320;
+    public final int id;
+    public final String name;
+    public final double latitude;
+    public final double longitude;
+    public final int radius;
+    public final float innerRadius;
+    private final Set<String> allowedApps;
+    private final double[] polygonLatitudes;
+    private final double[] polygonLongitudes;
+    final double cosLatitude;
+    final double[] vertexX;
+    final double[] vertexY;
+    final double[] edgeX;
+    final double[] edgeY;
+    final double[] edgeSlope;
+    final double[] edgeInverseLengthSquared;
+    final double minX;
+    final double maxX;
+    final double minY;
+    final double maxY;
+
+    // Construtor que inicializa a área com o centro, o raio em metros e os apps liberados nela
+    public GeofenceZone(int id, String name, double latitude, double longitude, int radius,
+                        Set<String> allowedApps) {
+        this.id = id;
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.radius = radius;
+        this.innerRadius = radius;
+        this.allowedApps = Collections.unmodifiableSet(new HashSet<>(allowedApps));
+        polygonLatitudes = null;
+        polygonLongitudes = null;
+        cosLatitude = Math.cos(Math.toRadians(latitude));
+        vertexX = null;
+        vertexY = null;
+        edgeX = null;
+        edgeY = null;
+        edgeSlope = null;
+        edgeInverseLengthSquared = null;
+        minX = -radius;
+        maxX = radius;
+        minY = -radius;
+        maxY = radius;
+    }
+
+    // Construtor que inicializa a área como um polígono com os vértices em ordem e os apps liberados nela
+    public GeofenceZone(int id, String name, double[] latitudes, double[] longitudes,
+                        Set<String> allowedApps) {
+        int count = latitudes.length;
+        if (count < 3 || longitudes.length != count) {
+            throw new IllegalArgumentException("Polígono precisa de pelo menos 3 vértices");
+        }
+
+        this.id = id;
+        this.name = name;
+        this.allowedApps = Collections.unmodifiableSet(new HashSet<>(allowedApps));
+        polygonLatitudes = latitudes.clone();
+        polygonLongitudes = longitudes.clone();
+
+        double minLat = latitudes[0];
+        double maxLat = latitudes[0];
+        double minLngOffset = 0;
+        double maxLngOffset = 0;
+        for (int i = 1; i < count; i++) {
+            double lngOffset = normalizeLongitude(longitudes[i] - longitudes[0]);
+            minLat = Math.min(minLat, latitudes[i]);
+            maxLat = Math.max(maxLat, latitudes[i]);
+            minLngOffset = Math.min(minLngOffset, lngOffset);
+            maxLngOffset = Math.max(maxLngOffset, lngOffset);
+        }
+
+        latitude = (minLat + maxLat) / 2;
+        longitude = normalizeLongitude(longitudes[0] + (minLngOffset + maxLngOffset) / 2);
+        cosLatitude = Math.cos(Math.toRadians(latitude));
+
+        vertexX = new double[count + 1];
+        vertexY = new double[count + 1];
+        double farthest = 0;
+        for (int i = 0; i < count; i++) {
+            vertexX[i] = normalizeLongitude(longitudes[i] - longitude) * METERS_PER_DEGREE * cosLatitude;
+            vertexY[i] = (latitudes[i] - latitude) * METERS_PER_DEGREE;
+            farthest = Math.max(farthest, Math.hypot(vertexX[i], vertexY[i]));
+        }
+        vertexX[count] = vertexX[0];
+        vertexY[count] = vertexY[0];
+
+        edgeX = new double[count];
+        edgeY = new double[count];
+        edgeSlope = new double[count];
+        edgeInverseLengthSquared = new double[count];
+        double lowX = Double.MAX_VALUE;
+        double highX = -Double.MAX_VALUE;
+        double lowY = Double.MAX_VALUE;
+        double highY = -Double.MAX_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            edgeX[i] = vertexX[i + 1] - vertexX[i];
+            edgeY[i] = vertexY[i + 1] - vertexY[i];
+            edgeSlope[i] = edgeY[i] != 0 ? edgeX[i] / edgeY[i] : 0;
+
+            double lengthSquared = edgeX[i] * edgeX[i] + edgeY[i] * edgeY[i];
+            edgeInverseLengthSquared[i] = lengthSquared > 0 ? 1 / lengthSquared : 0;
+
+            lowX = Math.min(lowX, vertexX[i]);
+            highX = Math.max(highX, vertexX[i]);
+            lowY = Math.min(lowY, vertexY[i]);
+            highY = Math.max(highY, vertexY[i]);
+        }
+
+        minX = lowX;
+        maxX = highX;
+        minY = lowY;
+        maxY = highY;
+        radius = (int) Math.ceil(farthest);
+        innerRadius = (float) Math.min(maxX - minX, maxY - minY) / 2;
+    }
+
+    // Retorna se a área é um polígono
+    public boolean isPolygon() {
+        return vertexX != null;
+    }
+
+    // Retorna uma cópia das latitudes dos vértices, ou null se a área é circular
+    public double[] getPolygonLatitudes() {
+        return polygonLatitudes != null ? polygonLatitudes.clone() : null;
+    }
+
+    // Retorna uma cópia das longitudes dos vértices, ou null se a área é circular
+    public double[] getPolygonLongitudes() {
+        return polygonLongitudes != null ? polygonLongitudes.clone() : null;
+    }
+
+    // Retorna se o app bloqueado fica liberado dentro desta área
+    public boolean allowsApp(String packageName) {
+        return allowedApps.isEmpty() || allowedApps.contains(packageName);
+    }
+
+    // Retorna o conjunto imutável de apps liberados nesta área (vazio significa todos)
+    public Set<String> getAllowedApps() {
+        return allowedApps;
+    }
+
+    // Traz a diferença de longitude para o intervalo de -180° a 180°
+    static double normalizeLongitude(double longitude) {
+        if (longitude > 180) {
+            return longitude - 360;
+        } else if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude;
+    }
+}
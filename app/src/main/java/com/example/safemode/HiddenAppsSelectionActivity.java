@@ -1,8 +1,5 @@
 package com.example.safemode;
 
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageManager;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
@@ -16,15 +13,20 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Activity responsável por permitir ao usuário selecionar quais aplicativos devem ser ocultados.
- * Exibe uma lista de apps instalados e permite marcar/desmarcar para ocultar.
+ * Exibe uma lista de apps instalados e permite marcar/desmarcar para ocultar. As marcações
+ * partem sempre dos apps ocultos salvos, com as escolhas feitas pelo usuário nesta tela
+ * aplicadas por cima, de forma que um app que ainda não chegou à lista não é desmarcado.
  */
-public class HiddenAppsSelectionActivity extends AppCompatActivity implements AppListAdapter.OnAppToggleListener {
+public class HiddenAppsSelectionActivity extends AppCompatActivity implements AppListAdapter.OnAppToggleListener,
+        AppCatalog.CatalogChangeListener {
 
     private RecyclerView recyclerView;
     private AppListAdapter adapter;
@@ -34,10 +36,12 @@ public class HiddenAppsSelectionActivity extends AppCompatActivity implements Ap
     private Button btnRetry;
     private AppPreferences preferences;
     private List<AppInfo> appList;
+    private final Map<String, Boolean> userToggles = new HashMap<>();
 
-    // Callback chamado quando um app é marcado/desmarcado (não implementado)
+    // Callback chamado quando um app é marcado/desmarcado; guarda a escolha do usuário
     @Override
     public void onAppToggled(AppInfo appInfo, boolean isBlocked) {
+        userToggles.put(appInfo.packageName, isBlocked);
     }
 
     // Inicializa a activity, configura views e carrega lista de aplicativos
@@ -67,6 +71,13 @@ public class HiddenAppsSelectionActivity extends AppCompatActivity implements Ap
         saveHiddenApps();
     }
 
+    // Deixa de observar o catálogo ao destruir a activity
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        AppCatalog.getInstance(this).removeListener(this);
+    }
+
     // Configura as barras do sistema para tela cheia
     private void setupSystemBars() {
         try {
@@ -101,8 +112,18 @@ public class HiddenAppsSelectionActivity extends AppCompatActivity implements Ap
         recyclerView.setAdapter(adapter);
     }
 
-    // Carrega os aplicativos instalados em uma thread separada
+    // Exibe o catálogo atual e passa a observar suas mudanças
     private void loadInstalledApps() {
+        AppCatalog catalog = AppCatalog.getInstance(this);
+        catalog.removeListener(this);
+        catalog.addListener(this);
+
+        AppCatalogSnapshot snapshot = catalog.getSnapshot();
+        if (snapshot.loaded) {
+            onCatalogChanged(snapshot);
+            return;
+        }
+
         if (loadingLayout != null) {
             loadingLayout.setVisibility(View.VISIBLE);
         }
@@ -112,112 +133,87 @@ public class HiddenAppsSelectionActivity extends AppCompatActivity implements Ap
         if (layoutEmpty != null) {
             layoutEmpty.setVisibility(View.GONE);
         }
+    }
+
+    // Reconstrói a lista a partir de uma nova fotografia do catálogo
+    @Override
+    public void onCatalogChanged(AppCatalogSnapshot snapshot) {
+        List<AppInfo> apps = getInstalledApps(snapshot);
 
-        new Thread(() -> {
-            List<AppInfo> apps = getInstalledApps();
-
-            runOnUiThread(() -> {
-                appList.clear();
-                appList.addAll(apps);
-                adapter.notifyDataSetChanged();
-
-                if (loadingLayout != null) {
-                    loadingLayout.setVisibility(View.GONE);
-                }
-
-                if (apps.isEmpty()) {
-                    if (layoutEmpty != null) {
-                        layoutEmpty.setVisibility(View.VISIBLE);
-                    }
-                } else {
-                    if (containerApps != null) {
-                        containerApps.setVisibility(View.VISIBLE);
-                    }
-                }
-            });
-        }).start();
+        appList.clear();
+        appList.addAll(apps);
+        adapter.submitList(appList);
+
+        if (loadingLayout != null) {
+            loadingLayout.setVisibility(View.GONE);
+        }
+
+        if (apps.isEmpty()) {
+            if (containerApps != null) {
+                containerApps.setVisibility(View.GONE);
+            }
+            if (layoutEmpty != null) {
+                layoutEmpty.setVisibility(View.VISIBLE);
+            }
+        } else {
+            if (layoutEmpty != null) {
+                layoutEmpty.setVisibility(View.GONE);
+            }
+            if (containerApps != null) {
+                containerApps.setVisibility(View.VISIBLE);
+            }
+        }
     }
 
-    // Retorna a lista de aplicativos instalados com launcher intent
-    private List<AppInfo> getInstalledApps() {
+    // Retorna a lista de aplicativos do catálogo, preservando as marcações ainda não salvas
+    private List<AppInfo> getInstalledApps(AppCatalogSnapshot snapshot) {
         List<AppInfo> apps = new ArrayList<>();
-        PackageManager pm = getPackageManager();
+        Set<String> packageNameSet = new HashSet<>();
+        Set<String> hiddenApps = getMarkedApps();
+        PolicySnapshot policy = PolicyManager.getInstance(this).getSnapshot();
 
-        android.content.Intent mainIntent = new android.content.Intent(android.content.Intent.ACTION_MAIN, null);
-        mainIntent.addCategory(android.content.Intent.CATEGORY_LAUNCHER);
-        List<android.content.pm.ResolveInfo> launchableApps = pm.queryIntentActivities(mainIntent, 0);
+        for (AppCatalogEntry entry : snapshot.getEntries()) {
+            String packageName = entry.packageName;
 
-        Set<String> hiddenApps = preferences.getHiddenApps();
-
-        for (android.content.pm.ResolveInfo resolveInfo : launchableApps) {
-            String packageName = resolveInfo.activityInfo.packageName;
+            if (!packageNameSet.add(packageName)) {
+                continue;
+            }
 
             if (packageName.equals(getPackageName())) {
                 continue;
             }
 
-            if (isCriticalSystemApp(packageName)) {
+            if (policy.isProtectedApp(packageName)) {
                 continue;
             }
 
-            try {
-                ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-
-                String appName = appInfo.loadLabel(pm).toString();
-                Drawable icon = appInfo.loadIcon(pm);
-
-                boolean isHidden = hiddenApps.contains(packageName);
-
-                AppInfo info = new AppInfo(packageName, appName, icon);
-                info.isBlocked = isHidden;
-                apps.add(info);
-            } catch (PackageManager.NameNotFoundException e) {
-            }
+            AppInfo info = new AppInfo(packageName, entry.label, entry.activityName, entry.lastUpdateTime);
+            info.isBlocked = hiddenApps.contains(packageName);
+            apps.add(info);
         }
 
-        Collections.sort(apps, (a, b) -> a.appName.compareToIgnoreCase(b.appName));
-
         return apps;
     }
 
-    // Verifica se um aplicativo é crítico para o sistema e não deve ser ocultado
-    private boolean isCriticalSystemApp(String packageName) {
-        String[] criticalSystemApps = {
-                "com.android.systemui",
-                "android",
-                "com.android.phone",
-                "com.android.settings",
-                "com.android.launcher",
-                "com.android.dialer",
-                "com.google.android.gms",
-                "com.android.packageinstaller",
-                "com.android.launcher3",
-                "com.sec.android.app.launcher",
-                "com.android.emergency",
-                "com.android.incallui"
-        };
-
-        for (String criticalApp : criticalSystemApps) {
-            if (packageName.equals(criticalApp) || packageName.startsWith(criticalApp + ".")) {
-                return true;
+    // Retorna os pacotes ocultos salvos com as escolhas feitas nesta tela aplicadas por cima
+    private Set<String> getMarkedApps() {
+        Set<String> markedApps = preferences.getHiddenApps();
+
+        for (Map.Entry<String, Boolean> toggle : userToggles.entrySet()) {
+            if (toggle.getValue()) {
+                markedApps.add(toggle.getKey());
+            } else {
+                markedApps.remove(toggle.getKey());
             }
         }
 
-        return false;
+        return markedApps;
     }
 
     // Salva a lista de aplicativos marcados como ocultos nas preferências
     private void saveHiddenApps() {
         try {
-            Set<String> hiddenAppsSet = new java.util.HashSet<>();
-
-            for (AppInfo app : appList) {
-                if (app.isBlocked) {
-                    hiddenAppsSet.add(app.packageName);
-                }
-            }
-
-            preferences.setHiddenApps(hiddenAppsSet);
+            preferences.setHiddenApps(getMarkedApps());
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -0,0 +1,215 @@
+package com.example.safemode;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cache de ícones de aplicativos compartilhado pelo launcher e pelas telas de seleção.
+ * Os ícones são rasterizados uma única vez no tamanho da célula do launcher e salvos em
+ * PNG no diretório ICON_DIR; em memória ficam apenas os bitmaps mais usados, em um LRU
+ * limitado em bytes. Os adapters pedem o ícone ao vincular cada item e cancelam o pedido
+ * quando a view é reciclada, de forma que só os ícones visíveis são decodificados.
+ */
+public class IconCache {
+
+    private static final String ICON_DIR = "app_icons";
+    private static final int LOADER_THREADS = 2;
+    private static final long MAX_MEMORY_BYTES = 16L * 1024 * 1024;
+    private static volatile IconCache instance;
+    private final Context context;
+    private final File iconDir;
+    private final int iconSize;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Construtor privado que calcula o tamanho dos ícones e o limite de memória do cache
+    private IconCache(Context context) {
+        this.context = context;
+        iconDir = new File(context.getFilesDir(), ICON_DIR);
+        iconSize = context.getResources().getDimensionPixelSize(R.dimen.launcher_icon_size);
+
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, MAX_MEMORY_BYTES);
+        memoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    // Retorna a instância única do cache
+    public static IconCache getInstance(Context context) {
+        if (instance == null) {
+            synchronized (IconCache.class) {
+                if (instance == null) {
+                    instance = new IconCache(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Exibe o ícone da atividade na view, de imediato se estiver em memória ou assim que for
+    // carregado em background. Retorna o pedido pendente, que deve ser cancelado quando a view
+    // for reutilizada, ou null se o ícone já foi exibido.
+    public IconRequest load(String packageName, String activityName, long lastUpdateTime, ImageView target) {
+        String key = keyOf(packageName, activityName, lastUpdateTime);
+        Bitmap cached = memoryCache.get(key);
+
+        if (cached != null) {
+            target.setImageBitmap(cached);
+            return null;
+        }
+
+        target.setImageDrawable(null);
+
+        IconRequest request = new IconRequest(key, fileNameOf(packageName, activityName, lastUpdateTime),
+                packageName, activityName, target);
+        request.future = executor.submit(request);
+        return request;
+    }
+
+    // Remove do disco os ícones de atividades que não estão mais no catálogo ou foram atualizadas
+    void prune(Collection<AppCatalogEntry> entries) {
+        File[] files = iconDir.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        Set<String> fileNames = new HashSet<>();
+        for (AppCatalogEntry entry : entries) {
+            fileNames.add(fileNameOf(entry.packageName, entry.activityName, entry.lastUpdateTime));
+        }
+
+        for (File file : files) {
+            if (!fileNames.contains(file.getName())) {
+                file.delete();
+            }
+        }
+    }
+
+    // Lê o ícone do disco ou, se ainda não existir, rasteriza e salva o ícone do PackageManager
+    private Bitmap loadBitmap(String fileName, String packageName, String activityName) {
+        File file = new File(iconDir, fileName);
+
+        if (file.exists()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
+
+        try {
+            Drawable drawable = context.getPackageManager()
+                    .getActivityIcon(new ComponentName(packageName, activityName));
+            Bitmap bitmap = rasterize(drawable);
+
+            if (iconDir.exists() || iconDir.mkdirs()) {
+                try (FileOutputStream output = new FileOutputStream(file)) {
+                    bitmap.compress(Bitmap.CompressFormat.PNG, 100, output);
+                } catch (Exception e) {
+                    file.delete();
+                }
+            }
+
+            return bitmap;
+
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Desenha o ícone em um bitmap do tamanho da célula do launcher
+    private Bitmap rasterize(Drawable drawable) {
+        Bitmap bitmap = Bitmap.createBitmap(iconSize, iconSize, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, iconSize, iconSize);
+        drawable.draw(canvas);
+        return bitmap;
+    }
+
+    // Retorna a chave do ícone, que muda sempre que o pacote é atualizado
+    private static String keyOf(String packageName, String activityName, long lastUpdateTime) {
+        return packageName + "/" + activityName + "@" + lastUpdateTime;
+    }
+
+    // Retorna o nome do arquivo em disco do ícone
+    private static String fileNameOf(String packageName, String activityName, long lastUpdateTime) {
+        return packageName + "_" + Integer.toHexString(activityName.hashCode()) + "_" + lastUpdateTime + ".png";
+    }
+
+    /**
+     * Pedido de carregamento de um ícone para uma view.
+     * Um pedido cancelado antes de começar não decodifica nada, e um pedido cancelado depois
+     * de terminar não altera mais a view.
+     */
+    public class IconRequest implements Runnable {
+
+        private final String key;
+        private final String fileName;
+        private final String packageName;
+        private final String activityName;
+        private final ImageView target;
+        private volatile boolean cancelled = false;
+        private Future<?> future;
+
+        // Construtor que inicializa o pedido com o ícone e a view de destino
+        IconRequest(String key, String fileName, String packageName, String activityName, ImageView target) {
+            this.key = key;
+            this.fileName = fileName;
+            this.packageName = packageName;
+            this.activityName = activityName;
+            this.target = target;
+        }
+
+        // Cancela o pedido, retirando-o da fila se ainda não começou
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        // Carrega o ícone em background e o entrega à view na thread principal
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+
+            Bitmap bitmap = memoryCache.get(key);
+            if (bitmap == null) {
+                bitmap = loadBitmap(fileName, packageName, activityName);
+                if (bitmap == null) {
+                    return;
+                }
+                memoryCache.put(key, bitmap);
+            }
+
+            Bitmap result = bitmap;
+            mainHandler.post(() -> {
+                if (!cancelled) {
+                    target.setImageBitmap(result);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.content.Intent;
+import android.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Contadores de uso dos aplicativos abertos pelo launcher, com decaimento exponencial.
+ * Cada abertura soma exp((t - referenceTime) / tau) à pontuação do pacote, o que equivale
+ * a decair todas as pontuações com meia-vida HALF_LIFE sem nunca precisar atualizá-las: a
+ * ordem entre os pacotes não muda com o passar do tempo. Por isso o ranking é mantido em
+ * arrays paralelos já ordenados, e uma abertura só move o pacote aberto algumas posições
+ * para cima. Os pacotes são guardados pelo id do PackageDictionary do histórico de
+ * bloqueios e o ranking é salvo em um arquivo pequeno de pares (int, double). A leitura dos
+ * arquivos, as aberturas e as remoções rodam em ordem numa única thread de background, então
+ * até o carregamento terminar getTopPackages devolve uma lista vazia.
+ */
+public class LaunchFrequencyTracker implements PackageChangeMonitor.PackageChangeListener {
+
+    private static final String FILE_NAME = "launch_frequency.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_ENTRIES = 64;
+    private static final long HALF_LIFE = 7L * 24 * 60 * 60 * 1000;
+    private static final double TAU = HALF_LIFE / Math.log(2);
+    private static final double MAX_EXPONENT = 200;
+    private static volatile LaunchFrequencyTracker instance;
+    private final AtomicFile file;
+    private final Context context;
+    private PackageDictionary dictionary;
+    private final int[] packageIds = new int[MAX_ENTRIES];
+    private final double[] scores = new double[MAX_ENTRIES];
+    private int size = 0;
+    private long referenceTime;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean persistScheduled = new AtomicBoolean(false);
+
+    // Construtor privado que agenda a leitura do ranking salvo e passa a observar remoções de pacotes
+    private LaunchFrequencyTracker(Context context) {
+        this.context = context;
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        referenceTime = System.currentTimeMillis();
+        executor.execute(this::load);
+        PackageChangeMonitor.getInstance(context).addListener(this);
+    }
+
+    // Retorna a instância única do contador
+    public static LaunchFrequencyTracker getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LaunchFrequencyTracker.class) {
+                if (instance == null) {
+                    instance = new LaunchFrequencyTracker(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Agenda o registro de uma abertura do pacote em background
+    public void recordLaunch(String packageName) {
+        long now = System.currentTimeMillis();
+        executor.execute(() -> addLaunch(packageName, now));
+    }
+
+    // Executa a ação em background depois que o ranking salvo foi carregado
+    public void whenLoaded(Runnable action) {
+        executor.execute(action);
+    }
+
+    // Soma a abertura ao pacote e o sobe no ranking até a sua nova posição
+    private void addLaunch(String packageName, long now) {
+        int packageId = dictionary.idOf(packageName);
+        if (packageId < 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if ((now - referenceTime) / TAU > MAX_EXPONENT) {
+                rebase(now);
+            }
+
+            double increment = Math.exp((now - referenceTime) / TAU);
+            int index = indexOf(packageId);
+
+            if (index < 0) {
+                if (size == MAX_ENTRIES) {
+                    if (scores[size - 1] >= increment) {
+                        return;
+                    }
+                    size--;
+                }
+                index = size++;
+                packageIds[index] = packageId;
+                scores[index] = 0;
+            }
+
+            double score = scores[index] + increment;
+            while (index > 0 && scores[index - 1] < score) {
+                packageIds[index] = packageIds[index - 1];
+                scores[index] = scores[index - 1];
+                index--;
+            }
+            packageIds[index] = packageId;
+            scores[index] = score;
+        }
+
+        schedulePersist();
+    }
+
+    // Retorna os pacotes mais usados, do mais para o menos usado
+    public List<String> getTopPackages(int limit) {
+        List<String> result = new ArrayList<>(limit);
+
+        synchronized (this) {
+            if (dictionary == null) {
+                return result;
+            }
+
+            for (int i = 0; i < size && result.size() < limit; i++) {
+                String packageName = dictionary.nameOf(packageIds[i]);
+                if (packageName != null) {
+                    result.add(packageName);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    // Esquece o pacote quando ele é desinstalado
+    @Override
+    public void onPackageChanged(String action, String packageName, boolean replacing) {
+        if (Intent.ACTION_PACKAGE_REMOVED.equals(action) && !replacing) {
+            executor.execute(() -> removePackage(packageName));
+        }
+    }
+
+    // Remove o pacote do ranking, se ele estiver lá
+    private void removePackage(String packageName) {
+        int packageId = dictionary.findId(packageName);
+        if (packageId < 0) {
+            return;
+        }
+
+        boolean removed = false;
+
+        synchronized (this) {
+            int index = indexOf(packageId);
+            if (index >= 0) {
+                System.arraycopy(packageIds, index + 1, packageIds, index, size - index - 1);
+                System.arraycopy(scores, index + 1, scores, index, size - index - 1);
+                size--;
+                removed = true;
+            }
+        }
+
+        if (removed) {
+            schedulePersist();
+        }
+    }
+
+    // Retorna a posição do pacote no ranking, ou -1 se ele não estiver lá
+    private int indexOf(int packageId) {
+        for (int i = 0; i < size; i++) {
+            if (packageIds[i] == packageId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Move o tempo de referência para agora, reescalando as pontuações para evitar overflow
+    private void rebase(long now) {
+        double factor = Math.exp(-(now - referenceTime) / TAU);
+        for (int i = 0; i < size; i++) {
+            scores[i] *= factor;
+        }
+        referenceTime = now;
+    }
+
+    // Agenda uma única gravação em background para várias aberturas seguidas
+    private void schedulePersist() {
+        if (persistScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                persistScheduled.set(false);
+                persist();
+            });
+        }
+    }
+
+    // Salva o ranking em disco, já na ordem de pontuação
+    private void persist() {
+        int count;
+        long reference;
+        int[] idsCopy;
+        double[] scoresCopy;
+
+        synchronized (this) {
+            count = size;
+            reference = referenceTime;
+            idsCopy = packageIds.clone();
+            scoresCopy = scores.clone();
+        }
+
+        FileOutputStream output = null;
+        try {
+            output = file.startWrite();
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(reference);
+            data.writeInt(count);
+
+            for (int i = 0; i < count; i++) {
+                data.writeInt(idsCopy[i]);
+                data.writeDouble(scoresCopy[i]);
+            }
+
+            data.flush();
+            file.finishWrite(output);
+
+        } catch (Exception e) {
+            if (output != null) {
+                file.failWrite(output);
+            }
+        }
+    }
+
+    // Carrega o dicionário e o ranking salvo, ignorando um arquivo ausente ou inválido
+    private void load() {
+        PackageDictionary loadedDictionary = PackageDictionary.getInstance(context);
+
+        synchronized (this) {
+            dictionary = loadedDictionary;
+
+            try (FileInputStream input = file.openRead()) {
+                DataInputStream data = new DataInputStream(input);
+
+                if (data.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+
+                long reference = data.readLong();
+                int count = Math.min(data.readInt(), MAX_ENTRIES);
+
+                for (int i = 0; i < count; i++) {
+                    packageIds[i] = data.readInt();
+                    scores[i] = data.readDouble();
+                }
+
+                referenceTime = reference;
+                size = count;
+
+            } catch (Exception e) {
+                size = 0;
+            }
+        }
+    }
+}
@@ -8,25 +8,51 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Adapter para exibir aplicativos no launcher customizado.
- * Gerencia a exibição de apps e permite clicar para abri-los.
+ * Gerencia a exibição de apps e permite clicar para abri-los. As listas recebidas são
+ * comparadas em background com a lista atual, de forma que só as células que mudaram
+ * são reconstruídas.
  */
 public class LauncherAppAdapter extends RecyclerView.Adapter<LauncherAppAdapter.AppViewHolder> {
 
+    private static final DiffUtil.ItemCallback<LauncherAppInfo> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<LauncherAppInfo>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull LauncherAppInfo oldItem, @NonNull LauncherAppInfo newItem) {
+                    return Objects.equals(oldItem.packageName, newItem.packageName)
+                            && Objects.equals(oldItem.activityName, newItem.activityName);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull LauncherAppInfo oldItem, @NonNull LauncherAppInfo newItem) {
+                    return Objects.equals(oldItem.appName, newItem.appName)
+                            && oldItem.lastUpdateTime == newItem.lastUpdateTime
+                            && oldItem.isBlocked == newItem.isBlocked;
+                }
+            };
+
     private final Context context;
-    private final List<LauncherAppInfo> apps;
+    private final AsyncListDiffer<LauncherAppInfo> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private final OnAppClickListener listener;
+    private final Map<String, Long> stableIds = new HashMap<>();
 
     // Construtor que inicializa o adapter com contexto, lista de apps e listener
     public LauncherAppAdapter(Context context, List<LauncherAppInfo> apps, OnAppClickListener listener) {
         this.context = context;
-        this.apps = apps;
         this.listener = listener;
+        setHasStableIds(true);
+        differ.submitList(new ArrayList<>(apps));
     }
 
     // Cria uma nova instância de ViewHolder para um item da lista
@@ -40,21 +66,44 @@ public class LauncherAppAdapter extends RecyclerView.Adapter<LauncherAppAdapter.
     // Vincula os dados do aplicativo ao ViewHolder na posição especificada
     @Override
     public void onBindViewHolder(@NonNull AppViewHolder holder, int position) {
-        LauncherAppInfo app = apps.get(position);
+        LauncherAppInfo app = differ.getCurrentList().get(position);
         holder.bind(app);
     }
 
+    // Cancela o carregamento do ícone quando a view é reciclada
+    @Override
+    public void onViewRecycled(@NonNull AppViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.cancelIconLoad();
+    }
+
     // Retorna o número total de itens na lista
     @Override
     public int getItemCount() {
-        return apps.size();
+        return differ.getCurrentList().size();
     }
 
-    // Atualiza a lista de aplicativos e notifica o adapter
+    // Retorna um id estável derivado do pacote e da activity do item
+    @Override
+    public long getItemId(int position) {
+        LauncherAppInfo app = differ.getCurrentList().get(position);
+        return stableIdOf(app.packageName, app.activityName);
+    }
+
+    // Envia a nova lista para ser comparada em background com a atual
     public void updateApps(List<LauncherAppInfo> newApps) {
-        this.apps.clear();
-        this.apps.addAll(newApps);
-        notifyDataSetChanged();
+        differ.submitList(new ArrayList<>(newApps));
+    }
+
+    // Retorna o id atribuído ao par pacote/activity, criando um novo na primeira vez que aparece
+    private long stableIdOf(String packageName, String activityName) {
+        String key = packageName + "/" + activityName;
+        Long id = stableIds.get(key);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(key, id);
+        }
+        return id;
     }
 
     // Interface de callback para notificar quando um app é clicado
@@ -67,24 +116,39 @@ public class LauncherAppAdapter extends RecyclerView.Adapter<LauncherAppAdapter.
 
         private final ImageView iconView;
         private final TextView nameView;
+        private final ImageView blockedBadge;
+        private IconCache.IconRequest iconRequest;
 
-        // Construtor que inicializa as views do item
+        // Construtor que inicializa as views do item e o listener de clique
         public AppViewHolder(@NonNull View itemView) {
             super(itemView);
             iconView = itemView.findViewById(R.id.app_icon);
             nameView = itemView.findViewById(R.id.app_name);
+            blockedBadge = itemView.findViewById(R.id.app_blocked_badge);
+
+            itemView.setOnClickListener(v -> {
+                int position = getAdapterPosition();
+                if (listener != null && position != RecyclerView.NO_POSITION) {
+                    listener.onAppClick(differ.getCurrentList().get(position));
+                }
+            });
         }
 
-        // Vincula os dados do aplicativo às views e configura o listener de clique
+        // Vincula os dados do aplicativo às views
         public void bind(LauncherAppInfo app) {
-            iconView.setImageDrawable(app.icon);
+            cancelIconLoad();
+            iconRequest = IconCache.getInstance(context)
+                    .load(app.packageName, app.activityName, app.lastUpdateTime, iconView);
             nameView.setText(app.appName);
+            blockedBadge.setVisibility(app.isBlocked ? View.VISIBLE : View.GONE);
+        }
 
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onAppClick(app);
-                }
-            });
+        // Cancela o carregamento pendente do ícone deste item
+        void cancelIconLoad() {
+            if (iconRequest != null) {
+                iconRequest.cancel();
+                iconRequest = null;
+            }
         }
     }
 }
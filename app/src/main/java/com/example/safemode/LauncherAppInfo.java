@@ -1,16 +1,17 @@
 package com.example.safemode;
 
-import android.graphics.drawable.Drawable;
-
 /**
  * Classe de modelo que representa as informações de um aplicativo no launcher customizado.
- * Armazena dados como nome do pacote, nome da aplicação, activity de lançamento e ícone.
+ * Armazena dados como nome do pacote, nome da aplicação, activity de lançamento e a data
+ * de atualização usada para localizar o ícone no IconCache, além de indicar se o app está
+ * na lista de bloqueio.
  */
 public class LauncherAppInfo {
     public String packageName;
     public String appName;
     public String activityName;
-    public Drawable icon;
+    public long lastUpdateTime;
+    public boolean isBlocked;
 
     // Construtor vazio
     public LauncherAppInfo() {
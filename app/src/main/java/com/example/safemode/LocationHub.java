@@ -0,0 +1,458 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationListener;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fonte única de localização compartilhada por todo o processo.
+ * É o único ponto que registra listeners no LocationManager do sistema: os componentes que
+ * monitoram a área permitida registram um pedido e o hub mantém um só registro para todos,
+ * removendo-o quando ninguém mais precisa. Toda nova localização aceita fica em
+ * currentLocation e é repassada aos assinantes na thread principal. Leituras avulsas
+ * simultâneas são agrupadas em uma só. O registro não tem intervalo fixo nem distância
+ * mínima: segue o AdaptiveLocationScheduler, recalculado a cada localização e a cada
+ * mudança de política. Cada localização também
+ * alimenta um GeofenceStateMachine, mesmo quando não substitui currentLocation, e os
+ * assinantes só são avisados de entradas e saídas confirmadas do conjunto de áreas permitidas.
+ */
+public class LocationHub implements LocationListener, PolicyManager.PolicyChangeListener {
+
+    static final long LOCATION_MAX_AGE = 300000;
+    private static final long SINGLE_UPDATE_TIMEOUT = 30000;
+    private static volatile LocationHub instance;
+    private final Context context;
+    private final android.location.LocationManager systemLocationManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<LocationSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<Object> requests = new HashSet<>();
+    private final AdaptiveLocationScheduler scheduler = new AdaptiveLocationScheduler();
+    private final PolicyManager policyManager;
+    private final Runnable expireSingleUpdate = () -> singleUpdatePending = false;
+    private final Runnable confirmPendingTransition = this::evaluateGeofence;
+    private final GeofenceStateMachine geofence = new GeofenceStateMachine();
+    private final ZoneIndex.Query zoneQuery = new ZoneIndex.Query();
+    private ZoneIndex fenceZones;
+    private Location fenceLocation;
+    private long registeredInterval = -1;
+    private boolean registeredGps = false;
+    private volatile Location currentLocation;
+    private volatile boolean singleUpdatePending = false;
+
+    // Construtor privado que obtém o LocationManager do sistema e passa a observar a política
+    private LocationHub(Context context) {
+        this.context = context;
+        this.systemLocationManager = (android.location.LocationManager)
+                context.getSystemService(Context.LOCATION_SERVICE);
+        this.policyManager = PolicyManager.getInstance(context);
+        policyManager.addListener(this);
+    }
+
+    // Retorna a instância única do hub
+    public static LocationHub getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LocationHub.class) {
+                if (instance == null) {
+                    instance = new LocationHub(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna a melhor localização recebida até agora, ou null se nenhuma chegou
+    public Location getCurrentLocation() {
+        return currentLocation;
+    }
+
+    // Retorna o estado confirmado em relação à área permitida (GeofenceStateMachine.STATE_*)
+    int getGeofenceState() {
+        return geofence.getState();
+    }
+
+    // Adiciona um assinante que recebe todas as novas localizações
+    public void addSubscriber(LocationSubscriber subscriber) {
+        if (!subscribers.contains(subscriber)) {
+            subscribers.add(subscriber);
+        }
+    }
+
+    // Remove um assinante
+    public void removeSubscriber(LocationSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    // Registra um pedido de monitoramento da área permitida, com intervalo e provedor adaptativos,
+    // e refaz o registro no sistema se necessário. Retorna false se não há permissão ou provedor
+    // disponível.
+    public boolean requestGeofenceUpdates(Object owner) {
+        if (!hasLocationPermission() || !isLocationEnabled()) {
+            return false;
+        }
+
+        boolean first;
+        synchronized (this) {
+            first = registeredInterval < 0;
+            requests.add(owner);
+            scheduler.update(policyManager.getSnapshot(), currentLocation);
+            applyRegistration();
+        }
+
+        if (first) {
+            Location lastKnown = getBestLastKnownLocation();
+            if (lastKnown != null) {
+                mainHandler.post(() -> onLocationChanged(lastKnown));
+            }
+        }
+        return true;
+    }
+
+    // Retira o pedido de atualizações contínuas de um componente
+    public void removeUpdates(Object owner) {
+        synchronized (this) {
+            if (requests.remove(owner)) {
+                applyRegistration();
+            }
+        }
+    }
+
+    // Pede uma leitura avulsa, usando a última localização conhecida se ainda for recente.
+    // Retorna false se não há permissão ou provedor disponível.
+    public boolean requestSingleUpdate() {
+        if (!hasLocationPermission() || !isLocationEnabled()) {
+            return false;
+        }
+
+        Location lastKnown = getBestLastKnownLocation();
+        if (lastKnown != null && System.currentTimeMillis() - lastKnown.getTime() < LOCATION_MAX_AGE) {
+            mainHandler.post(() -> onLocationChanged(lastKnown));
+            return true;
+        }
+
+        if (singleUpdatePending) {
+            return true;
+        }
+
+        boolean requested = requestSingleUpdate(android.location.LocationManager.GPS_PROVIDER);
+        requested |= requestSingleUpdate(android.location.LocationManager.NETWORK_PROVIDER);
+        requestSingleUpdate(android.location.LocationManager.PASSIVE_PROVIDER);
+
+        if (requested) {
+            singleUpdatePending = true;
+            mainHandler.removeCallbacks(expireSingleUpdate);
+            mainHandler.postDelayed(expireSingleUpdate, SINGLE_UPDATE_TIMEOUT);
+        }
+        return requested;
+    }
+
+    // Callback chamado pelo sistema quando chega uma nova localização
+    @Override
+    public void onLocationChanged(Location location) {
+        boolean isBetter = isBetterLocation(location, currentLocation);
+
+        if (isBetter) {
+            currentLocation = location;
+
+            for (LocationSubscriber subscriber : subscribers) {
+                try {
+                    subscriber.onLocationUpdate(location);
+                } catch (Exception e) {
+                }
+            }
+        }
+
+        if (fenceLocation == null || fixTimeOf(location) >= fixTimeOf(fenceLocation)) {
+            fenceLocation = location;
+            evaluateGeofence();
+        }
+
+        if (isBetter) {
+            reschedule(policyManager.getSnapshot(), location);
+        }
+    }
+
+    // Recalcula o plano adaptativo e o estado da área quando a política muda
+    @Override
+    public void onPolicyChanged(PolicySnapshot snapshot) {
+        reschedule(snapshot, currentLocation);
+        mainHandler.post(confirmPendingTransition);
+    }
+
+    // Alimenta a máquina de estados com a leitura mais recente e avisa os assinantes de uma troca
+    // confirmada; se houver uma troca pendente, agenda uma nova avaliação para o fim da espera
+    private void evaluateGeofence() {
+        Location location = fenceLocation;
+        long now = SystemClock.elapsedRealtime();
+        PolicySnapshot policy = policyManager.getSnapshot();
+        mainHandler.removeCallbacks(confirmPendingTransition);
+
+        if (location == null || !policy.hasAllowedArea()) {
+            return;
+        }
+
+        if (policy.zones != fenceZones) {
+            fenceZones = policy.zones;
+            geofence.reset();
+        }
+
+        fenceZones.query(location.getLatitude(), location.getLongitude(), null, zoneQuery);
+
+        float depth;
+        float innerRadius;
+        if (zoneQuery.zone != null) {
+            depth = zoneQuery.depth;
+            innerRadius = zoneQuery.zone.innerRadius;
+        } else {
+            depth = -zoneQuery.nearestBoundary - 1;
+            innerRadius = 1;
+        }
+
+        boolean transitioned = geofence.update(depth, innerRadius, location.getAccuracy(),
+                fixTimeOf(location), now);
+
+        if (transitioned) {
+            boolean inside = geofence.getState() == GeofenceStateMachine.STATE_INSIDE;
+            for (LocationSubscriber subscriber : subscribers) {
+                try {
+                    subscriber.onGeofenceTransition(inside);
+                } catch (Exception e) {
+                }
+            }
+        }
+
+        long delay = geofence.pendingDelay(now);
+        if (delay >= 0) {
+            mainHandler.postDelayed(confirmPendingTransition, delay);
+        }
+    }
+
+    // Callback chamado quando o status do provedor muda (não implementado)
+    @Override
+    public void onStatusChanged(String provider, int status, Bundle extras) {
+    }
+
+    // Pede uma leitura assim que um provedor volta a ser habilitado
+    @Override
+    public void onProviderEnabled(String provider) {
+        requestSingleUpdate();
+    }
+
+    // Avisa os assinantes que um provedor foi desligado
+    @Override
+    public void onProviderDisabled(String provider) {
+        for (LocationSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onLocationProviderDisabled(provider);
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    // Verifica se o app tem permissão de localização
+    boolean hasLocationPermission() {
+        return ContextCompat.checkSelfPermission(context,
+                android.Manifest.permission.ACCESS_FINE_LOCATION)
+                == android.content.pm.PackageManager.PERMISSION_GRANTED;
+    }
+
+    // Verifica se pelo menos um provedor de localização está habilitado
+    boolean isLocationEnabled() {
+        return systemLocationManager.isProviderEnabled(android.location.LocationManager.GPS_PROVIDER) ||
+                systemLocationManager.isProviderEnabled(android.location.LocationManager.NETWORK_PROVIDER);
+    }
+
+    // Atualiza o plano adaptativo e refaz o registro se ele mudou
+    private synchronized void reschedule(PolicySnapshot policy, Location location) {
+        if (!requests.isEmpty() && scheduler.update(policy, location)) {
+            applyRegistration();
+        }
+    }
+
+    // Refaz o registro no sistema com o plano do AdaptiveLocationScheduler, só quando ele muda.
+    // O GPS só é usado quando o plano pede ou quando a rede está desligada.
+    private void applyRegistration() {
+        if (requests.isEmpty()) {
+            unregister();
+            return;
+        }
+
+        long interval = scheduler.getInterval();
+        boolean useGps = scheduler.usesGps();
+
+        boolean networkEnabled = systemLocationManager.isProviderEnabled(
+                android.location.LocationManager.NETWORK_PROVIDER);
+        if (!networkEnabled) {
+            useGps = true;
+        }
+
+        if (interval == registeredInterval && useGps == registeredGps) {
+            return;
+        }
+
+        unregister();
+
+        try {
+            if (useGps && systemLocationManager.isProviderEnabled(android.location.LocationManager.GPS_PROVIDER)) {
+                systemLocationManager.requestLocationUpdates(
+                        android.location.LocationManager.GPS_PROVIDER,
+                        interval,
+                        0,
+                        this,
+                        Looper.getMainLooper()
+                );
+            }
+
+            if (networkEnabled) {
+                systemLocationManager.requestLocationUpdates(
+                        android.location.LocationManager.NETWORK_PROVIDER,
+                        interval,
+                        0,
+                        this,
+                        Looper.getMainLooper()
+                );
+            }
+
+            systemLocationManager.requestLocationUpdates(
+                    android.location.LocationManager.PASSIVE_PROVIDER,
+                    0,
+                    0,
+                    this,
+                    Looper.getMainLooper()
+            );
+
+            registeredInterval = interval;
+            registeredGps = useGps;
+
+        } catch (SecurityException e) {
+        } catch (Exception e) {
+        }
+    }
+
+    // Remove o registro contínuo no sistema
+    private void unregister() {
+        try {
+            systemLocationManager.removeUpdates(this);
+        } catch (Exception e) {
+        }
+        registeredInterval = -1;
+        registeredGps = false;
+    }
+
+    // Pede uma leitura avulsa ao provedor informado, se ele estiver habilitado
+    private boolean requestSingleUpdate(String provider) {
+        try {
+            if (!android.location.LocationManager.PASSIVE_PROVIDER.equals(provider)
+                    && !systemLocationManager.isProviderEnabled(provider)) {
+                return false;
+            }
+
+            systemLocationManager.requestSingleUpdate(provider, new SingleUpdateLocationListener(),
+                    Looper.getMainLooper());
+            return true;
+
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Retorna o momento da leitura na mesma base de SystemClock.elapsedRealtime
+    private static long fixTimeOf(Location location) {
+        return location.getElapsedRealtimeNanos() / 1000000;
+    }
+
+    // Verifica se uma localização é melhor que a atual baseada em tempo e precisão
+    private boolean isBetterLocation(Location location, Location currentBestLocation) {
+        if (currentBestLocation == null) {
+            return true;
+        }
+
+        long timeDelta = location.getTime() - currentBestLocation.getTime();
+        boolean isSignificantlyNewer = timeDelta > 2 * 60 * 1000;
+        boolean isSignificantlyOlder = timeDelta < -2 * 60 * 1000;
+
+        if (isSignificantlyNewer) {
+            return true;
+        } else if (isSignificantlyOlder) {
+            return false;
+        }
+
+        int accuracyDelta = (int) (location.getAccuracy() - currentBestLocation.getAccuracy());
+        boolean isMoreAccurate = accuracyDelta < 0;
+        boolean isSignificantlyLessAccurate = accuracyDelta > 200;
+
+        boolean isFromSameProvider = location.getProvider() != null &&
+                location.getProvider().equals(currentBestLocation.getProvider());
+
+        if (isMoreAccurate) {
+            return true;
+        } else {
+            return !isSignificantlyLessAccurate && !isFromSameProvider;
+        }
+    }
+
+    // Retorna a melhor última localização conhecida de todos os provedores
+    private Location getBestLastKnownLocation() {
+        Location best = null;
+        String[] providers = {
+                android.location.LocationManager.GPS_PROVIDER,
+                android.location.LocationManager.NETWORK_PROVIDER,
+                android.location.LocationManager.PASSIVE_PROVIDER
+        };
+
+        for (String provider : providers) {
+            try {
+                Location last = systemLocationManager.getLastKnownLocation(provider);
+                if (last != null && isBetterLocation(last, best)) {
+                    best = last;
+                }
+            } catch (Exception e) {
+            }
+        }
+
+        return best;
+    }
+
+    // Interface de callback para os componentes que consomem localização
+    public interface LocationSubscriber {
+        void onLocationUpdate(Location location);
+
+        void onGeofenceTransition(boolean isInsideAllowedArea);
+
+        void onLocationProviderDisabled(String provider);
+    }
+
+    // LocationListener para uma única leitura avulsa de um provedor
+    private class SingleUpdateLocationListener implements LocationListener {
+
+        // Encerra a leitura pendente e repassa a localização ao hub
+        @Override
+        public void onLocationChanged(Location location) {
+            singleUpdatePending = false;
+            mainHandler.removeCallbacks(expireSingleUpdate);
+            LocationHub.this.onLocationChanged(location);
+        }
+
+        @Override
+        public void onStatusChanged(String provider, int status, Bundle extras) {
+        }
+
+        @Override
+        public void onProviderEnabled(String provider) {
+        }
+
+        @Override
+        public void onProviderDisabled(String provider) {
+        }
+    }
+}
@@ -7,28 +7,25 @@ import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
 import android.location.Location;
-import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Build;
-import android.os.Bundle;
 import android.os.IBinder;
 
 import androidx.core.app.NotificationCompat;
-import androidx.core.content.ContextCompat;
 
 /**
  * Service em foreground que monitora continuamente a localização do dispositivo.
  * Verifica se o usuário está dentro da área permitida e exibe notificações de status.
+ * As localizações vêm do LocationHub, que mantém um único registro no sistema para
+ * todo o processo, que também decide quando o usuário de fato entrou ou saiu da área: a
+ * notificação e o broadcast só são atualizados nessas trocas.
  */
-public class LocationService extends Service implements LocationListener {
+public class LocationService extends Service implements LocationHub.LocationSubscriber {
 
     private static final String CHANNEL_ID = "LocationService";
     private static final int NOTIFICATION_ID = 1002;
-    private static final long UPDATE_INTERVAL = 30000;
-    private static final float MIN_DISTANCE = 10;
-    private LocationManager systemLocationManager;
+    private LocationHub locationHub;
     private AppPreferences preferences;
-    private Location currentLocation;
     private LocationUpdateListener listener;
 
     // Inicializa o service e cria o canal de notificações
@@ -37,7 +34,7 @@ public class LocationService extends Service implements LocationListener {
         super.onCreate();
 
         preferences = new AppPreferences(this);
-        systemLocationManager = (LocationManager) getSystemService(LOCATION_SERVICE);
+        locationHub = LocationHub.getInstance(this);
 
         createNotificationChannel();
     }
@@ -70,130 +67,59 @@ public class LocationService extends Service implements LocationListener {
         return new LocationBinder();
     }
 
-    // Callback chamado quando a localização muda
+    // Callback chamado pelo hub a cada nova leitura; só as trocas confirmadas são tratadas
     @Override
-    public void onLocationChanged(Location location) {
-        currentLocation = location;
-
-        boolean isOutside = isOutsideAllowedArea(location);
+    public void onLocationUpdate(Location location) {
+    }
 
-        updateNotification(!isOutside);
+    // Callback chamado pelo hub quando uma entrada ou saída da área permitida é confirmada
+    @Override
+    public void onGeofenceTransition(boolean isInsideAllowedArea) {
+        updateNotification(isInsideAllowedArea);
 
         if (listener != null) {
-            listener.onLocationChanged(!isOutside);
+            listener.onLocationChanged(isInsideAllowedArea);
         }
 
-        sendLocationBroadcast(!isOutside, location);
-    }
-
-    // Callback chamado quando o status do provedor muda (não implementado)
-    @Override
-    public void onStatusChanged(String provider, int status, Bundle extras) {
-    }
-
-    // Callback chamado quando um provedor é habilitado (não implementado)
-    @Override
-    public void onProviderEnabled(String provider) {
+        Location location = locationHub.getCurrentLocation();
+        if (location != null) {
+            sendLocationBroadcast(isInsideAllowedArea, location);
+        }
     }
 
-    // Callback chamado quando um provedor é desabilitado
+    // Callback chamado pelo hub quando um provedor é desabilitado
     @Override
-    public void onProviderDisabled(String provider) {
+    public void onLocationProviderDisabled(String provider) {
         if (LocationManager.GPS_PROVIDER.equals(provider)) {
             notifyLocationError("GPS foi desligado");
         }
     }
 
-    // Inicia atualizações contínuas de localização dos provedores GPS e Network
+    // Passa a receber localizações do hub e aplica a última já conhecida
     private void startLocationUpdates() {
-        try {
-            if (!hasLocationPermission()) {
-                stopSelf();
-                return;
-            }
+        locationHub.addSubscriber(this);
+
+        if (!locationHub.requestGeofenceUpdates(this)) {
+            locationHub.removeSubscriber(this);
 
-            if (!isLocationEnabled()) {
+            if (!locationHub.hasLocationPermission()) {
+                stopSelf();
+            } else {
                 notifyLocationError("GPS está desligado");
-                return;
             }
-
-            systemLocationManager.requestLocationUpdates(
-                    LocationManager.GPS_PROVIDER,
-                    UPDATE_INTERVAL,
-                    MIN_DISTANCE,
-                    this
-            );
-
-            systemLocationManager.requestLocationUpdates(
-                    LocationManager.NETWORK_PROVIDER,
-                    UPDATE_INTERVAL,
-                    MIN_DISTANCE,
-                    this
-            );
-
-            tryGetLastKnownLocation();
-
-        } catch (SecurityException e) {
-            notifyLocationError("Permissão de localização negada");
-            stopSelf();
-        } catch (Exception e) {
-            notifyLocationError("Erro ao iniciar GPS: " + e.getMessage());
-            stopSelf();
+            return;
         }
-    }
-
-    // Para as atualizações contínuas de localização
-    private void stopLocationUpdates() {
-        try {
-            systemLocationManager.removeUpdates(this);
-        } catch (Exception e) {
-        }
-    }
-
-    // Tenta obter a última localização conhecida dos provedores
-    private void tryGetLastKnownLocation() {
-        try {
-            Location lastGPS = systemLocationManager.getLastKnownLocation(LocationManager.GPS_PROVIDER);
-            Location lastNetwork = systemLocationManager.getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
-
-            Location bestLocation = null;
-
-            if (lastGPS != null && lastNetwork != null) {
-                bestLocation = lastGPS.getTime() > lastNetwork.getTime() ? lastGPS : lastNetwork;
-            } else if (lastGPS != null) {
-                bestLocation = lastGPS;
-            } else if (lastNetwork != null) {
-                bestLocation = lastNetwork;
-            }
-
-            if (bestLocation != null) {
-                onLocationChanged(bestLocation);
-            }
 
-        } catch (SecurityException e) {
+        int state = locationHub.getGeofenceState();
+        if (state != GeofenceStateMachine.STATE_UNKNOWN) {
+            onGeofenceTransition(state == GeofenceStateMachine.STATE_INSIDE);
         }
     }
 
-    // Verifica se a localização está fora da área permitida
-    private boolean isOutsideAllowedArea(Location location) {
-        double allowedLat = preferences.getAllowedLatitude();
-        double allowedLng = preferences.getAllowedLongitude();
-        int allowedRadius = preferences.getAllowedRadius();
-
-        if (allowedLat == 0.0 && allowedLng == 0.0) {
-            return false;
-        }
-
-        float[] results = new float[1];
-        Location.distanceBetween(
-                location.getLatitude(),
-                location.getLongitude(),
-                allowedLat,
-                allowedLng,
-                results
-        );
-
-        return results[0] > allowedRadius;
+    // Deixa de receber localizações do hub
+    private void stopLocationUpdates() {
+        locationHub.removeUpdates(this);
+        locationHub.removeSubscriber(this);
     }
 
     // Envia broadcast com informações de localização para outros componentes
@@ -214,19 +140,6 @@ public class LocationService extends Service implements LocationListener {
         }
     }
 
-    // Verifica se o app tem permissão de localização
-    private boolean hasLocationPermission() {
-        return ContextCompat.checkSelfPermission(this,
-                android.Manifest.permission.ACCESS_FINE_LOCATION)
-                == android.content.pm.PackageManager.PERMISSION_GRANTED;
-    }
-
-    // Verifica se pelo menos um provedor de localização está habilitado
-    private boolean isLocationEnabled() {
-        return systemLocationManager.isProviderEnabled(LocationManager.GPS_PROVIDER) ||
-                systemLocationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER);
-    }
-
     // Cria o canal de notificações para Android O e superiores
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -277,6 +190,7 @@ public class LocationService extends Service implements LocationListener {
             iconColor = 0xFFFF9800;
         }
 
+        Location currentLocation = locationHub.getCurrentLocation();
         if (currentLocation != null) {
             text += String.format(" (±%.0fm)", currentLocation.getAccuracy());
         }
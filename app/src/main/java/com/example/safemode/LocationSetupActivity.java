@@ -3,18 +3,21 @@ package com.example.safemode;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.graphics.Color;
+import android.location.Location;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
@@ -28,12 +31,24 @@ import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.Circle;
 import com.google.android.gms.maps.model.CircleOptions;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.Polygon;
+import com.google.android.gms.maps.model.PolygonOptions;
+import com.google.maps.android.PolyUtil;
+import com.google.maps.android.SphericalUtil;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
- * Activity para configurar a área geográfica permitida usando Google Maps.
- * Permite ao usuário selecionar uma localização no mapa e definir um raio de área segura.
+ * Activity para configurar as áreas geográficas permitidas usando Google Maps.
+ * Permite ao usuário criar várias áreas tocando no mapa, circulares ou desenhadas como
+ * polígonos ponto a ponto, definir o raio, o nome e os apps liberados de cada uma, e
+ * salvá-las todas de uma vez no ZoneStore.
  */
 public class LocationSetupActivity extends AppCompatActivity implements OnMapReadyCallback {
 
@@ -45,11 +60,18 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
     private SeekBar seekBarRadius;
     private Button btnMyLocation;
     private Button btnSaveLocation;
+    private Button btnNewZone;
+    private Button btnDeleteZone;
+    private Button btnRenameZone;
+    private Button btnZoneApps;
+    private Button btnDrawPolygon;
     private GoogleMap googleMap;
     private FusedLocationProviderClient fusedLocationClient;
     private SupportMapFragment mapFragment;
-    private Marker selectedLocationMarker;
-    private Circle safeAreaCircle;
+    private final List<ZoneDraft> zones = new ArrayList<>();
+    private ZoneDraft selectedZone;
+    private int nextZoneId = 1;
+    private boolean drawingPolygon;
     private LatLng selectedLatLng;
     private int currentRadius = 100;
     private AppPreferences preferences;
@@ -124,16 +146,12 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
     // Limpa recursos quando a activity é destruída
     protected void onDestroy() {
         try {
-            if (selectedLocationMarker != null) {
-                selectedLocationMarker.remove();
-                selectedLocationMarker = null;
-            }
-            if (safeAreaCircle != null) {
-                safeAreaCircle.remove();
-                safeAreaCircle = null;
+            for (ZoneDraft zone : zones) {
+                zone.removeFromMap();
             }
 
             googleMap = null;
+            selectedZone = null;
             selectedLatLng = null;
 
         } catch (Exception e) {
@@ -149,12 +167,11 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
         super.onResume();
 
         try {
-            if (googleMap != null && selectedLatLng != null) {
-                if (selectedLocationMarker == null) {
-                    updateLocationMarker(selectedLatLng);
-                }
-                if (safeAreaCircle == null) {
-                    updateSafeAreaCircle();
+            if (googleMap != null) {
+                for (ZoneDraft zone : zones) {
+                    if (zone.marker == null || (zone.circle == null && zone.polygon == null)) {
+                        drawZone(zone);
+                    }
                 }
             }
 
@@ -215,6 +232,11 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
             seekBarRadius = findViewById(R.id.seekbar_radius);
             btnMyLocation = findViewById(R.id.btn_my_location);
             btnSaveLocation = findViewById(R.id.btn_save_location);
+            btnNewZone = findViewById(R.id.btn_new_zone);
+            btnDeleteZone = findViewById(R.id.btn_delete_zone);
+            btnRenameZone = findViewById(R.id.btn_rename_zone);
+            btnZoneApps = findViewById(R.id.btn_zone_apps);
+            btnDrawPolygon = findViewById(R.id.btn_draw_polygon);
             preferences = new AppPreferences(this);
             fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
             seekBarRadius.setMax(2000);
@@ -265,14 +287,33 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
         }
     }
 
-    // Callback chamado quando o usuário clica no mapa
+    // Callback chamado quando o usuário clica no mapa: acrescenta um vértice ao polígono em
+    // desenho, seleciona a área tocada, move a área selecionada ou cria uma nova área se
+    // nenhuma estiver selecionada
     private void onMapClick(LatLng latLng) {
         try {
-            selectedLatLng = latLng;
+            if (drawingPolygon && selectedZone != null) {
+                selectedZone.vertices.add(latLng);
+                selectedZone.updatePolygonCenter();
+                selectedLatLng = selectedZone.center;
+                drawZone(selectedZone);
+                updateLocationInfo();
+                return;
+            }
 
-            updateLocationMarker(latLng);
+            ZoneDraft touched = findZoneAt(latLng);
 
-            updateSafeAreaCircle();
+            if (touched != null && touched != selectedZone) {
+                selectZone(touched);
+            } else if (selectedZone == null) {
+                ZoneDraft zone = new ZoneDraft(nextZoneId++, "Área " + (zones.size() + 1), latLng, currentRadius);
+                zones.add(zone);
+                selectZone(zone);
+            } else {
+                selectedZone.moveTo(latLng);
+                selectedLatLng = selectedZone.center;
+                drawZone(selectedZone);
+            }
 
             updateLocationInfo();
 
@@ -282,39 +323,100 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
         }
     }
 
-    // Atualiza o marcador da localização selecionada
-    private void updateLocationMarker(LatLng latLng) {
-        try {
-            if (selectedLocationMarker != null) {
-                selectedLocationMarker.remove();
+    // Retorna a área que contém o ponto tocado, dando preferência à menor. As arestas do
+    // polígono são retas no mapa, como as desenhadas e as avaliadas pelo ZoneIndex.
+    private ZoneDraft findZoneAt(LatLng latLng) {
+        ZoneDraft found = null;
+        double foundArea = 0;
+        float[] results = new float[1];
+
+        for (ZoneDraft zone : zones) {
+            boolean contains;
+            if (zone.isPolygon()) {
+                contains = PolyUtil.containsLocation(latLng, zone.vertices, false);
+            } else {
+                Location.distanceBetween(latLng.latitude, latLng.longitude,
+                        zone.center.latitude, zone.center.longitude, results);
+                contains = results[0] <= zone.radius;
+            }
+
+            if (contains) {
+                double area = zone.area();
+                if (found == null || area < foundArea) {
+                    found = zone;
+                    foundArea = area;
+                }
             }
+        }
+        return found;
+    }
 
-            selectedLocationMarker = googleMap.addMarker(new MarkerOptions()
-                    .position(latLng));
+    // Seleciona a área para edição (ou nenhuma) e redesenha a anterior e a nova
+    private void selectZone(ZoneDraft zone) {
+        ZoneDraft previous = selectedZone;
+        selectedZone = zone;
 
-        } catch (Exception e) {
+        if (previous != null) {
+            drawZone(previous);
+        }
+
+        if (zone != null) {
+            selectedLatLng = zone.center;
+            drawZone(zone);
+        } else {
+            selectedLatLng = null;
+        }
+
+        if (zone != null && zone.isPolygon()) {
+            seekBarRadius.setEnabled(false);
+            textRadiusValue.setText("Área desenhada");
+        } else {
+            if (zone != null) {
+                currentRadius = zone.radius;
+            }
+            seekBarRadius.setEnabled(true);
+            seekBarRadius.setProgress(currentRadius);
+            updateRadiusText(currentRadius);
         }
+
+        enableZoneButtons(zone != null);
     }
 
-    // Atualiza o círculo que representa a área segura
-    private void updateSafeAreaCircle() {
+    // Desenha o marcador e o círculo ou polígono da área, em azul se ela estiver selecionada
+    private void drawZone(ZoneDraft zone) {
         try {
-            if (selectedLatLng == null) {
+            zone.removeFromMap();
+
+            if (googleMap == null || zone.center == null) {
                 return;
             }
 
-            if (safeAreaCircle != null) {
-                safeAreaCircle.remove();
+            boolean selected = zone == selectedZone;
+            int strokeColor = selected ? Color.BLUE : Color.GRAY;
+            int fillColor = selected ? Color.argb(50, 0, 100, 255) : Color.argb(40, 120, 120, 120);
+
+            zone.marker = googleMap.addMarker(new MarkerOptions()
+                    .position(zone.center)
+                    .title(zone.name)
+                    .alpha(selected ? 1.0f : 0.6f));
+
+            if (zone.isPolygon()) {
+                zone.polygon = googleMap.addPolygon(new PolygonOptions()
+                        .addAll(zone.vertices)
+                        .strokeColor(strokeColor)
+                        .strokeWidth(3)
+                        .fillColor(fillColor));
+                return;
             }
 
             CircleOptions circleOptions = new CircleOptions()
-                    .center(selectedLatLng)
-                    .radius(currentRadius)
-                    .strokeColor(Color.BLUE)
+                    .center(zone.center)
+                    .radius(zone.radius)
+                    .strokeColor(strokeColor)
                     .strokeWidth(3)
-                    .fillColor(Color.argb(50, 0, 100, 255));
+                    .fillColor(fillColor);
 
-            safeAreaCircle = googleMap.addCircle(circleOptions);
+            zone.circle = googleMap.addCircle(circleOptions);
 
         } catch (Exception e) {
         }
@@ -323,15 +425,42 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
     // Atualiza as informações de texto da localização selecionada
     private void updateLocationInfo() {
         try {
-            if (selectedLatLng != null) {
+            if (drawingPolygon && selectedZone != null) {
+                textSelectedLocation.setText(String.format(
+                        "Desenhando %s: %d pontos\nToque no mapa para marcar cada canto da área e em \"Concluir polígono\" ao terminar",
+                        selectedZone.name,
+                        selectedZone.vertices.size()));
+            } else if (selectedZone != null && selectedZone.isPolygon()) {
+                int appCount = selectedZone.allowedApps.size();
+                textSelectedLocation.setText(String.format(
+                        "%s (%d de %d áreas)\nPolígono com %d pontos\nTamanho: %.0f m²\nApps liberados: %s",
+                        selectedZone.name,
+                        zones.indexOf(selectedZone) + 1,
+                        zones.size(),
+                        selectedZone.vertices.size(),
+                        selectedZone.area(),
+                        appCount == 0 ? "todos os bloqueados" : String.valueOf(appCount)
+                ));
+            } else if (selectedZone != null) {
+                int appCount = selectedZone.allowedApps.size();
                 String locationText = String.format(
-                        "Localização selecionada\nLat: %.6f\nLng: %.6f\nRaio: %d metros",
-                        selectedLatLng.latitude,
-                        selectedLatLng.longitude,
-                        currentRadius
+                        "%s (%d de %d áreas)\nLat: %.6f\nLng: %.6f\nRaio: %d metros\nApps liberados: %s",
+                        selectedZone.name,
+                        zones.indexOf(selectedZone) + 1,
+                        zones.size(),
+                        selectedZone.center.latitude,
+                        selectedZone.center.longitude,
+                        selectedZone.radius,
+                        appCount == 0 ? "todos os bloqueados" : String.valueOf(appCount)
                 );
 
                 textSelectedLocation.setText(locationText);
+            } else if (zones.isEmpty()) {
+                textSelectedLocation.setText("Toque no mapa para criar uma área");
+            } else {
+                textSelectedLocation.setText(String.format(
+                        "%d áreas cadastradas\nToque em uma área para editá-la ou no mapa para criar outra",
+                        zones.size()));
             }
 
         } catch (Exception e) {
@@ -347,7 +476,7 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
             btnSaveLocation.setAlpha(alpha);
 
             if (enabled) {
-                btnSaveLocation.setText("Salvar localização");
+                btnSaveLocation.setText("Salvar áreas");
             } else {
                 btnSaveLocation.setText("Selecione uma localização primeiro");
             }
@@ -356,36 +485,62 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
         }
     }
 
-    // Carrega as configurações salvas anteriormente
+    // Habilita ou desabilita os botões que editam a área selecionada
+    private void enableZoneButtons(boolean enabled) {
+        try {
+            float alpha = enabled ? 1.0f : 0.5f;
+
+            btnDeleteZone.setEnabled(enabled);
+            btnDeleteZone.setAlpha(alpha);
+            btnRenameZone.setEnabled(enabled);
+            btnRenameZone.setAlpha(alpha);
+            btnZoneApps.setEnabled(enabled);
+            btnZoneApps.setAlpha(alpha);
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Carrega as áreas salvas anteriormente e seleciona a primeira
     private void loadSavedSettings() {
         try {
-            int savedRadius = preferences.getAllowedRadius();
-            if (savedRadius > 0) {
-                currentRadius = savedRadius;
-                seekBarRadius.setProgress(currentRadius);
-                updateRadiusText(currentRadius);
+            for (GeofenceZone zone : ZoneStore.getInstance(this).getZones()) {
+                ZoneDraft draft = new ZoneDraft(zone.id, zone.name,
+                        new LatLng(zone.latitude, zone.longitude), zone.radius);
+
+                if (zone.isPolygon()) {
+                    double[] latitudes = zone.getPolygonLatitudes();
+                    double[] longitudes = zone.getPolygonLongitudes();
+                    draft.vertices = new ArrayList<>(latitudes.length);
+                    for (int i = 0; i < latitudes.length; i++) {
+                        draft.vertices.add(new LatLng(latitudes[i], longitudes[i]));
+                    }
+                    draft.updatePolygonCenter();
+                }
+
+                draft.allowedApps.addAll(zone.getAllowedApps());
+                zones.add(draft);
+                nextZoneId = Math.max(nextZoneId, zone.id + 1);
             }
 
+            selectZone(zones.isEmpty() ? null : zones.get(0));
+
         } catch (Exception e) {
         }
     }
 
-    // Carrega a área salva anteriormente e exibe no mapa
+    // Desenha as áreas salvas no mapa e centraliza na área selecionada
     private void loadSavedArea() {
         try {
-            double savedLat = preferences.getAllowedLatitude();
-            double savedLng = preferences.getAllowedLongitude();
-
-            if (savedLat != 0.0 && savedLng != 0.0) {
-                LatLng savedLocation = new LatLng(savedLat, savedLng);
-                selectedLatLng = savedLocation;
+            for (ZoneDraft zone : zones) {
+                drawZone(zone);
+            }
 
-                updateLocationMarker(savedLocation);
-                updateSafeAreaCircle();
+            if (selectedZone != null) {
                 updateLocationInfo();
                 enableActionButtons(true);
 
-                googleMap.animateCamera(CameraUpdateFactory.newLatLngZoom(savedLocation, 15));
+                googleMap.animateCamera(CameraUpdateFactory.newLatLngZoom(selectedZone.center, 15));
             }
 
         } catch (Exception e) {
@@ -399,6 +554,26 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
 
             btnSaveLocation.setOnClickListener(v -> saveLocationSettings());
 
+            btnNewZone.setOnClickListener(v -> {
+                finishPolygon();
+                selectZone(null);
+                updateLocationInfo();
+            });
+
+            btnDrawPolygon.setOnClickListener(v -> {
+                if (drawingPolygon) {
+                    finishPolygon();
+                } else {
+                    startPolygon();
+                }
+            });
+
+            btnDeleteZone.setOnClickListener(v -> deleteSelectedZone());
+
+            btnRenameZone.setOnClickListener(v -> showRenameDialog());
+
+            btnZoneApps.setOnClickListener(v -> showZoneAppsDialog());
+
             seekBarRadius.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
                 @Override
                 public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
@@ -410,8 +585,9 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
                         currentRadius = progress;
                         updateRadiusText(progress);
 
-                        if (selectedLatLng != null) {
-                            updateSafeAreaCircle();
+                        if (selectedZone != null && !selectedZone.isPolygon()) {
+                            selectedZone.radius = progress;
+                            drawZone(selectedZone);
                             updateLocationInfo();
                         }
                     }
@@ -467,34 +643,184 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
         }
     }
 
-    // Salva as configurações de localização e raio nas preferências
-    private void saveLocationSettings() {
+    // Cria uma área poligonal vazia e passa a acrescentar um vértice a cada toque no mapa
+    private void startPolygon() {
         try {
-            if (selectedLatLng == null) {
-                showMessage("Selecione uma localização no mapa primeiro");
+            ZoneDraft zone = new ZoneDraft(nextZoneId++, "Área " + (zones.size() + 1), null, 0);
+            zone.vertices = new ArrayList<>();
+            zones.add(zone);
+
+            drawingPolygon = true;
+            selectZone(zone);
+            btnDrawPolygon.setText("Concluir polígono");
+            updateLocationInfo();
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Encerra o desenho do polígono, descartando-o se tiver menos de 3 pontos
+    private void finishPolygon() {
+        try {
+            if (!drawingPolygon) {
                 return;
             }
 
-            preferences.setAllowedLocation(
-                    selectedLatLng.latitude,
-                    selectedLatLng.longitude,
-                    currentRadius
-            );
+            drawingPolygon = false;
+            btnDrawPolygon.setText("Desenhar polígono");
+
+            if (selectedZone != null && selectedZone.vertices.size() < 3) {
+                showMessage("Um polígono precisa de pelo menos 3 pontos");
+                selectedZone.removeFromMap();
+                zones.remove(selectedZone);
+                selectedZone = null;
+                selectZone(null);
+            } else {
+                enableActionButtons(true);
+            }
 
-            double savedLat = preferences.getAllowedLatitude();
-            double savedLng = preferences.getAllowedLongitude();
-            int savedRadius = preferences.getAllowedRadius();
+            updateLocationInfo();
 
-            boolean saveSuccess = Math.abs(savedLat - selectedLatLng.latitude) < 0.000001 &&
-                    Math.abs(savedLng - selectedLatLng.longitude) < 0.000001 &&
-                    savedRadius == currentRadius;
+        } catch (Exception e) {
+        }
+    }
 
-            if (saveSuccess) {
-                showMessage("Localização salva com sucesso!");
-            } else {
+    // Remove a área selecionada da lista e do mapa
+    private void deleteSelectedZone() {
+        try {
+            if (drawingPolygon) {
+                drawingPolygon = false;
+                btnDrawPolygon.setText("Desenhar polígono");
+            }
+
+            if (selectedZone == null) {
+                return;
+            }
+
+            selectedZone.removeFromMap();
+            zones.remove(selectedZone);
+            selectedZone = null;
+
+            selectZone(zones.isEmpty() ? null : zones.get(0));
+            updateLocationInfo();
+            enableActionButtons(true);
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Abre um diálogo para renomear a área selecionada
+    private void showRenameDialog() {
+        try {
+            if (selectedZone == null) {
+                return;
+            }
+
+            ZoneDraft zone = selectedZone;
+            EditText input = new EditText(this);
+            input.setText(zone.name);
+            input.setSelectAllOnFocus(true);
+
+            new AlertDialog.Builder(this)
+                    .setTitle("Nome da área")
+                    .setView(input)
+                    .setPositiveButton("OK", (dialog, which) -> {
+                        String name = input.getText().toString().trim();
+                        if (!name.isEmpty()) {
+                            zone.name = name;
+                            drawZone(zone);
+                            updateLocationInfo();
+                        }
+                    })
+                    .setNegativeButton("Cancelar", null)
+                    .show();
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Abre um diálogo para escolher quais apps bloqueados ficam liberados na área selecionada.
+    // Sem nenhum app marcado, a área libera todos os apps bloqueados.
+    private void showZoneAppsDialog() {
+        try {
+            if (selectedZone == null) {
+                return;
+            }
+
+            List<String> packages = new ArrayList<>(preferences.getBlockedApps());
+            if (packages.isEmpty()) {
+                showMessage("Nenhum app bloqueado");
+                return;
+            }
+
+            AppLabelCache labelCache = AppLabelCache.getInstance(this);
+            ZoneDraft zone = selectedZone;
+            Set<String> chosen = new HashSet<>(zone.allowedApps);
+            String[] labels = new String[packages.size()];
+            boolean[] checked = new boolean[packages.size()];
+
+            for (int i = 0; i < packages.size(); i++) {
+                labels[i] = labelCache.getLabel(packages.get(i));
+                checked[i] = chosen.contains(packages.get(i));
+            }
+
+            new AlertDialog.Builder(this)
+                    .setTitle("Apps liberados nesta área")
+                    .setMultiChoiceItems(labels, checked, (dialog, which, isChecked) -> {
+                        if (isChecked) {
+                            chosen.add(packages.get(which));
+                        } else {
+                            chosen.remove(packages.get(which));
+                        }
+                    })
+                    .setPositiveButton("OK", (dialog, which) -> {
+                        zone.allowedApps.clear();
+                        zone.allowedApps.addAll(chosen);
+                        updateLocationInfo();
+                    })
+                    .setNeutralButton("Todos", (dialog, which) -> {
+                        zone.allowedApps.clear();
+                        updateLocationInfo();
+                    })
+                    .setNegativeButton("Cancelar", null)
+                    .show();
+
+        } catch (Exception e) {
+        }
+    }
+
+    // Salva todas as áreas no ZoneStore e ativa o bloqueio por localização
+    private void saveLocationSettings() {
+        try {
+            finishPolygon();
+
+            List<GeofenceZone> saved = new ArrayList<>(zones.size());
+            for (ZoneDraft zone : zones) {
+                if (zone.isPolygon()) {
+                    double[] latitudes = new double[zone.vertices.size()];
+                    double[] longitudes = new double[zone.vertices.size()];
+                    for (int i = 0; i < latitudes.length; i++) {
+                        latitudes[i] = zone.vertices.get(i).latitude;
+                        longitudes[i] = zone.vertices.get(i).longitude;
+                    }
+                    saved.add(new GeofenceZone(zone.id, zone.name, latitudes, longitudes, zone.allowedApps));
+                } else {
+                    saved.add(new GeofenceZone(zone.id, zone.name, zone.center.latitude,
+                            zone.center.longitude, zone.radius, zone.allowedApps));
+                }
+            }
+
+            if (!ZoneStore.getInstance(this).saveZones(saved)) {
                 showMessage("Erro ao salvar localização");
+                return;
+            }
+
+            if (!saved.isEmpty()) {
+                preferences.setLocationEnabled(true);
             }
 
+            showMessage(saved.isEmpty() ? "Áreas removidas" : "Localização salva com sucesso!");
+
         } catch (Exception e) {
             showMessage("Erro ao salvar: " + e.getMessage());
         }
@@ -648,4 +974,83 @@ public class LocationSetupActivity extends AppCompatActivity implements OnMapRea
         }
     }
 
-}
\ No newline at end of file
+    // Área em edição na tela, com o marcador e o círculo ou polígono que a representam no mapa.
+    // Em um polígono, vertices guarda os cantos em ordem e center fica no meio da caixa envolvente.
+    private static final class ZoneDraft {
+        final int id;
+        String name;
+        LatLng center;
+        int radius;
+        List<LatLng> vertices;
+        final Set<String> allowedApps = new HashSet<>();
+        Marker marker;
+        Circle circle;
+        Polygon polygon;
+
+        // Construtor que inicializa a área com o centro e o raio em metros
+        ZoneDraft(int id, String name, LatLng center, int radius) {
+            this.id = id;
+            this.name = name;
+            this.center = center;
+            this.radius = radius;
+        }
+
+        // Retorna se a área é um polígono
+        boolean isPolygon() {
+            return vertices != null;
+        }
+
+        // Retorna o tamanho da área em metros quadrados
+        double area() {
+            if (isPolygon()) {
+                return vertices.size() < 3 ? 0 : SphericalUtil.computeArea(vertices);
+            }
+            return Math.PI * radius * radius;
+        }
+
+        // Recalcula o centro do polígono a partir da caixa envolvente dos vértices
+        void updatePolygonCenter() {
+            if (vertices.isEmpty()) {
+                center = null;
+                return;
+            }
+
+            LatLngBounds.Builder bounds = LatLngBounds.builder();
+            for (LatLng vertex : vertices) {
+                bounds.include(vertex);
+            }
+            center = bounds.build().getCenter();
+        }
+
+        // Move a área para o novo centro, deslocando todos os vértices de um polígono
+        void moveTo(LatLng newCenter) {
+            if (isPolygon() && center != null) {
+                double distance = SphericalUtil.computeDistanceBetween(center, newCenter);
+                double heading = SphericalUtil.computeHeading(center, newCenter);
+
+                for (int i = 0; i < vertices.size(); i++) {
+                    vertices.set(i, SphericalUtil.computeOffset(vertices.get(i), distance, heading));
+                }
+                updatePolygonCenter();
+            } else {
+                center = newCenter;
+            }
+        }
+
+        // Remove o marcador e o círculo ou polígono da área do mapa
+        void removeFromMap() {
+            if (marker != null) {
+                marker.remove();
+                marker = null;
+            }
+            if (circle != null) {
+                circle.remove();
+                circle = null;
+            }
+            if (polygon != null) {
+                polygon.remove();
+                polygon = null;
+            }
+        }
+    }
+}
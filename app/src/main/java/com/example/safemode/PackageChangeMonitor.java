@@ -0,0 +1,89 @@
+package com.example.safemode;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Receiver único do processo para instalação, remoção e atualização de pacotes.
+ * Extrai o nome do pacote dos dados da intent e repassa a mudança para os componentes
+ * interessados, evitando que cada um registre o seu próprio receiver.
+ */
+public class PackageChangeMonitor extends BroadcastReceiver {
+
+    private static volatile PackageChangeMonitor instance;
+    private final List<PackageChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Construtor privado, use getInstance para obter o monitor
+    private PackageChangeMonitor() {
+    }
+
+    // Retorna a instância única do monitor, registrando o receiver na primeira chamada
+    public static PackageChangeMonitor getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PackageChangeMonitor.class) {
+                if (instance == null) {
+                    PackageChangeMonitor monitor = new PackageChangeMonitor();
+                    monitor.register(context.getApplicationContext());
+                    instance = monitor;
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Adiciona um listener de mudanças de pacotes
+    public void addListener(PackageChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    // Remove um listener de mudanças de pacotes
+    public void removeListener(PackageChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Recebe o broadcast do sistema e notifica os listeners com o pacote afetado
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        Uri data = intent.getData();
+        String packageName = data != null ? data.getSchemeSpecificPart() : null;
+        boolean replacing = intent.getBooleanExtra(Intent.EXTRA_REPLACING, false);
+
+        if (action == null || packageName == null) {
+            return;
+        }
+
+        for (PackageChangeListener listener : listeners) {
+            try {
+                listener.onPackageChanged(action, packageName, replacing);
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    // Registra o receiver no contexto da aplicação
+    private void register(Context context) {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+
+        try {
+            context.registerReceiver(this, filter);
+        } catch (Exception e) {
+        }
+    }
+
+    // Interface de callback para notificar mudanças em pacotes instalados
+    public interface PackageChangeListener {
+        void onPackageChanged(String action, String packageName, boolean replacing);
+    }
+}
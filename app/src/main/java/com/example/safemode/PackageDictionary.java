@@ -0,0 +1,131 @@
+package com.example.safemode;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dicionário persistente que associa nomes de pacote a identificadores inteiros.
+ * Permite que os registros do histórico guardem apenas um int por pacote. O arquivo
+ * é apenas acrescido: o identificador de cada pacote é a sua posição no arquivo.
+ * Há um único dicionário no processo, compartilhado pelo histórico de bloqueios e pelo
+ * contador de uso do launcher; idOf grava em disco e não deve rodar na thread principal.
+ */
+class PackageDictionary {
+
+    private static final String FILE_NAME = "block_log_packages.bin";
+    private static volatile PackageDictionary instance;
+    private final File file;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private long validLength = 0;
+
+    // Construtor privado que carrega os pacotes já registrados no arquivo
+    private PackageDictionary(File file) {
+        this.file = file;
+        load();
+    }
+
+    // Retorna a instância única do dicionário
+    static PackageDictionary getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PackageDictionary.class) {
+                if (instance == null) {
+                    instance = new PackageDictionary(new File(context.getFilesDir(), FILE_NAME));
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna o identificador do pacote, registrando-o no arquivo se for novo
+    synchronized int idOf(String packageName) {
+        Integer id = ids.get(packageName);
+        if (id != null) {
+            return id;
+        }
+
+        byte[] bytes = packageName.getBytes(StandardCharsets.UTF_8);
+
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeShort(bytes.length);
+            data.write(bytes);
+            data.flush();
+            output.getFD().sync();
+        } catch (Exception e) {
+            truncateToValidLength();
+            return -1;
+        }
+
+        validLength += 2 + bytes.length;
+
+        int newId = names.size();
+        names.add(packageName);
+        ids.put(packageName, newId);
+        return newId;
+    }
+
+    // Retorna o identificador do pacote sem registrá-lo, ou -1 se ele ainda não foi registrado
+    synchronized int findId(String packageName) {
+        Integer id = ids.get(packageName);
+        return id != null ? id : -1;
+    }
+
+    // Retorna o nome do pacote para o identificador informado, ou null se desconhecido
+    synchronized String nameOf(int id) {
+        if (id < 0 || id >= names.size()) {
+            return null;
+        }
+        return names.get(id);
+    }
+
+    // Lê o arquivo e descarta uma eventual entrada incompleta no final
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (FileInputStream input = new FileInputStream(file)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+
+            while (true) {
+                int length = data.readUnsignedShort();
+                byte[] bytes = new byte[length];
+                data.readFully(bytes);
+
+                String packageName = new String(bytes, StandardCharsets.UTF_8);
+                ids.put(packageName, names.size());
+                names.add(packageName);
+                validLength += 2 + length;
+            }
+
+        } catch (EOFException e) {
+        } catch (Exception e) {
+        }
+
+        if (validLength != file.length()) {
+            truncateToValidLength();
+        }
+    }
+
+    // Remove do final do arquivo qualquer entrada gravada pela metade
+    private void truncateToValidLength() {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(validLength);
+        } catch (Exception e) {
+        }
+    }
+}
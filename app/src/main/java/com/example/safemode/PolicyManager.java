@@ -0,0 +1,158 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantém em memória a política de bloqueio atual do processo.
+ * Observa as alterações em AppPreferences e reconstrói a PolicySnapshot apenas quando
+ * algo muda, trocando a referência de forma atômica para os leitores. Também resolve,
+ * uma vez por mudança de pacotes, quais apps do dispositivo são protegidos (launcher
+ * padrão e, opcionalmente, apps com FLAG_SYSTEM). As áreas permitidas vêm do ZoneStore,
+ * que pede uma reconstrução sempre que elas são salvas.
+ */
+public class PolicyManager implements SharedPreferences.OnSharedPreferenceChangeListener,
+        PackageChangeMonitor.PackageChangeListener {
+
+    private static volatile PolicyManager instance;
+    private final Context context;
+    private final AppPreferences preferences;
+    private final ZoneStore zoneStore;
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final List<PolicyChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService resolverExecutor = Executors.newSingleThreadExecutor();
+    private volatile Set<String> resolvedProtectedPackages = Collections.emptySet();
+    private volatile PolicySnapshot snapshot;
+
+    // Construtor privado que carrega a política inicial e passa a observar as preferências
+    private PolicyManager(Context context) {
+        this.context = context;
+        preferences = new AppPreferences(context);
+        zoneStore = ZoneStore.getInstance(context);
+        snapshot = PolicySnapshot.fromPreferences(preferences, versionCounter.incrementAndGet(),
+                resolvedProtectedPackages, zoneStore.getIndex());
+        preferences.registerOnChangeListener(this);
+        PackageChangeMonitor.getInstance(context).addListener(this);
+        resolveProtectedPackagesAsync();
+    }
+
+    // Retorna a instância única do gerenciador de política
+    public static PolicyManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PolicyManager.class) {
+                if (instance == null) {
+                    instance = new PolicyManager(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna a política atual com uma única leitura volátil
+    public PolicySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Adiciona um listener notificado sempre que a política é reconstruída
+    public void addListener(PolicyChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    // Remove um listener de mudanças de política
+    public void removeListener(PolicyChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Reconstrói a política quando qualquer preferência é alterada
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (AppPreferences.KEY_PROTECT_SYSTEM_APPS.equals(key)) {
+            resolveProtectedPackagesAsync();
+            return;
+        }
+        rebuild();
+    }
+
+    // Resolve novamente os pacotes protegidos quando apps são instalados, removidos ou alterados
+    @Override
+    public void onPackageChanged(String action, String packageName, boolean replacing) {
+        resolveProtectedPackagesAsync();
+    }
+
+    // Reconstrói a fotografia da política e notifica os listeners
+    public void rebuild() {
+        PolicySnapshot newSnapshot;
+
+        synchronized (this) {
+            newSnapshot = PolicySnapshot.fromPreferences(preferences, versionCounter.incrementAndGet(),
+                    resolvedProtectedPackages, zoneStore.getIndex());
+            snapshot = newSnapshot;
+        }
+
+        for (PolicyChangeListener listener : listeners) {
+            try {
+                listener.onPolicyChanged(newSnapshot);
+            } catch (Exception e) {
+            }
+        }
+    }
+
+    // Resolve em background o launcher padrão e os apps de sistema protegidos
+    private void resolveProtectedPackagesAsync() {
+        resolverExecutor.execute(() -> {
+            try {
+                resolvedProtectedPackages = resolveProtectedPackages();
+                rebuild();
+            } catch (Exception e) {
+            }
+        });
+    }
+
+    // Consulta o PackageManager pelos pacotes que o dispositivo exige que fiquem liberados
+    private Set<String> resolveProtectedPackages() {
+        Set<String> packages = new HashSet<>();
+        PackageManager pm = context.getPackageManager();
+
+        try {
+            Intent homeIntent = new Intent(Intent.ACTION_MAIN);
+            homeIntent.addCategory(Intent.CATEGORY_HOME);
+            ResolveInfo defaultLauncher = pm.resolveActivity(homeIntent, PackageManager.MATCH_DEFAULT_ONLY);
+
+            if (defaultLauncher != null && defaultLauncher.activityInfo != null) {
+                packages.add(defaultLauncher.activityInfo.packageName);
+            }
+        } catch (Exception e) {
+        }
+
+        if (preferences.isProtectSystemAppsEnabled()) {
+            try {
+                for (ApplicationInfo appInfo : pm.getInstalledApplications(0)) {
+                    if ((appInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0) {
+                        packages.add(appInfo.packageName);
+                    }
+                }
+            } catch (Exception e) {
+            }
+        }
+
+        return packages;
+    }
+
+    // Interface de callback para notificar mudanças na política
+    public interface PolicyChangeListener {
+        void onPolicyChanged(PolicySnapshot snapshot);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.safemode;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fotografia imutável e versionada da política de bloqueio.
+ * Reúne as flags do modo seguro, os conjuntos de apps bloqueados e ocultos e o índice das
+ * áreas permitidas, para que cada decisão seja apenas uma leitura de campos, buscas em
+ * hash e uma consulta ao ZoneIndex.
+ */
+public final class PolicySnapshot {
+
+    public final long version;
+    public final boolean safeModeEnabled;
+    public final boolean hideModeActive;
+    public final boolean locationEnabled;
+    public final boolean locationFailClosed;
+    public final boolean globalEventDelivery;
+    public final ZoneIndex zones;
+    public final int blockDebounceMs;
+    private final Set<String> blockedApps;
+    private final Set<String> hiddenApps;
+    private final SystemAppAllowlist allowlist;
+
+    // Construtor privado, use fromPreferences para criar uma nova fotografia
+    private PolicySnapshot(long version, boolean safeModeEnabled, boolean hideModeActive,
+                           boolean locationEnabled, boolean locationFailClosed,
+                           boolean globalEventDelivery, ZoneIndex zones, int blockDebounceMs,
+                           Set<String> blockedApps,
+                           Set<String> hiddenApps, SystemAppAllowlist allowlist) {
+        this.version = version;
+        this.safeModeEnabled = safeModeEnabled;
+        this.hideModeActive = hideModeActive;
+        this.locationEnabled = locationEnabled;
+        this.locationFailClosed = locationFailClosed;
+        this.globalEventDelivery = globalEventDelivery;
+        this.zones = zones;
+        this.blockDebounceMs = blockDebounceMs;
+        this.blockedApps = blockedApps;
+        this.hiddenApps = hiddenApps;
+        this.allowlist = allowlist;
+    }
+
+    // Cria uma nova fotografia lendo o estado atual das preferências, as áreas salvas e os pacotes
+    // resolvidos no dispositivo
+    public static PolicySnapshot fromPreferences(AppPreferences preferences, long version,
+                                                 Set<String> resolvedProtectedPackages, ZoneIndex zones) {
+        return new PolicySnapshot(
+                version,
+                preferences.isSafeModeEnabled(),
+                preferences.isHideModeActive(),
+                preferences.isLocationEnabled(),
+                preferences.isLocationFailClosed(),
+                preferences.isGlobalEventDeliveryEnabled(),
+                zones,
+                preferences.getBlockDebounceMs(),
+                freeze(preferences.getBlockedApps()),
+                freeze(preferences.getHiddenApps()),
+                SystemAppAllowlist.compile(preferences.getAllowlistedApps(), resolvedProtectedPackages)
+        );
+    }
+
+    // Verifica se um aplicativo está bloqueado sem alocar memória
+    public boolean isAppBlocked(String packageName) {
+        return blockedApps.contains(packageName);
+    }
+
+    // Verifica se um aplicativo está oculto sem alocar memória
+    public boolean isAppHidden(String packageName) {
+        return hiddenApps.contains(packageName);
+    }
+
+    // Verifica se o aplicativo é crítico para o sistema e nunca deve ser bloqueado
+    public boolean isProtectedApp(String packageName) {
+        return allowlist.isProtected(packageName);
+    }
+
+    // Retorna o conjunto imutável de aplicativos bloqueados
+    public Set<String> getBlockedApps() {
+        return blockedApps;
+    }
+
+    // Retorna o conjunto imutável de aplicativos ocultos
+    public Set<String> getHiddenApps() {
+        return hiddenApps;
+    }
+
+    // Retorna se existe ao menos uma área permitida configurada
+    public boolean hasAllowedArea() {
+        return !zones.isEmpty();
+    }
+
+    // Copia o conjunto para um HashSet imutável com os nomes já limpos
+    private static Set<String> freeze(Set<String> source) {
+        Set<String> cleanSet = new HashSet<>(source.size() * 2);
+        for (String app : source) {
+            cleanSet.add(app.trim());
+        }
+        return Collections.unmodifiableSet(cleanSet);
+    }
+}
@@ -1,17 +1,40 @@
 package com.example.safemode;
 
+import android.accessibilityservice.AccessibilityServiceInfo;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Serviço de acessibilidade responsável por monitorar a abertura de aplicativos.
  * Detecta quando apps bloqueados são abertos e os bloqueia baseado em localização
  * ou configurações de apps ocultos. Funciona como o núcleo do sistema de bloqueio.
  */
-public class SafeModeAccessibilityService extends android.accessibilityservice.AccessibilityService {
-
-    private AppPreferences preferences;
-    private LocationManager locationManager;
+public class SafeModeAccessibilityService extends android.accessibilityservice.AccessibilityService
+        implements LocationHub.LocationSubscriber, PolicyManager.PolicyChangeListener {
+
+    private static final long PENDING_DECISION_TIMEOUT = 10000;
+    private static final int DEBOUNCE_TABLE_SIZE = 32;
+    private final BlockDebouncer debouncer = new BlockDebouncer(DEBOUNCE_TABLE_SIZE);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable expirePendingDecision = () -> pendingLocationPackage = null;
+    private PolicyManager policyManager;
+    private BlockDecisionEngine decisionEngine;
+    private LocationHub locationHub;
+    private BlockEventWriter blockEventWriter;
+    private String pendingLocationPackage;
+    private long pendingLocationSince;
+    private String lastWindowPackage;
+    private boolean locationRefreshRequested = false;
+    private Set<String> appliedEventPackages;
+    private int appliedEventTypes = -1;
 
     // Monitora eventos de mudança de janela para detectar abertura de apps
     @Override
@@ -30,33 +53,38 @@ public class SafeModeAccessibilityService extends android.accessibilityservice.A
                 return;
             }
 
-            if (!preferences.isSafeModeEnabled()) {
-                return;
+            // Quando outra janela (inclusive a tela de bloqueio) assume o primeiro plano, a
+            // próxima abertura do app anterior é uma nova abertura e precisa ser decidida de novo
+            String previousPackage = lastWindowPackage;
+            if (previousPackage != null && !previousPackage.equals(packageName)) {
+                debouncer.forget(previousPackage);
             }
+            lastWindowPackage = packageName;
 
-            if (packageName.equals(getPackageName())) {
+            PolicySnapshot policy = policyManager.getSnapshot();
+
+            if (decisionEngine.isExempt(policy, packageName)) {
                 return;
             }
 
-            if (isSystemApp(packageName)) {
+            long now = SystemClock.uptimeMillis();
+            if (debouncer.lookup(packageName, now, policy.blockDebounceMs) != BlockDebouncer.DECISION_NONE) {
                 return;
             }
 
-            boolean isHideModeActive = preferences.isHideModeActive();
+            int decision = decisionEngine.decide(policy, packageName, locationHub.getCurrentLocation());
 
-            if (isHideModeActive) {
-                if (preferences.isAppHidden(packageName)) {
-                    blockAppWithActivity(packageName);
-                    return;
-                }
+            if (decision == BlockDecisionEngine.BLOCK_REFRESH_LOCATION) {
+                requestLocationRefresh(null);
+            } else if (decision == BlockDecisionEngine.ALLOW_REFRESH_LOCATION) {
+                requestLocationRefresh(packageName);
             }
 
-            if (!preferences.isAppBlocked(packageName)) {
-                return;
-            }
-
-            if (shouldBlockBasedOnLocation()) {
+            if (BlockDecisionEngine.isBlock(decision)) {
+                debouncer.record(packageName, now, BlockDebouncer.DECISION_BLOCK);
                 blockAppWithActivity(packageName);
+            } else {
+                debouncer.record(packageName, now, BlockDebouncer.DECISION_ALLOW);
             }
 
         } catch (Exception e) {
@@ -68,9 +96,28 @@ public class SafeModeAccessibilityService extends android.accessibilityservice.A
     public void onInterrupt() {
     }
 
+    // Grava os eventos de bloqueio pendentes quando o sistema pede para liberar memória
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (blockEventWriter != null) {
+            blockEventWriter.flush();
+        }
+    }
+
     // Limpa recursos quando o serviço é destruído
     @Override
     public void onDestroy() {
+        if (policyManager != null) {
+            policyManager.removeListener(this);
+        }
+        if (blockEventWriter != null) {
+            blockEventWriter.flush();
+        }
+        if (locationHub != null) {
+            locationHub.removeSubscriber(this);
+        }
+        mainHandler.removeCallbacksAndMessages(null);
         super.onDestroy();
     }
 
@@ -80,95 +127,196 @@ public class SafeModeAccessibilityService extends android.accessibilityservice.A
         super.onServiceConnected();
 
         try {
-            preferences = new AppPreferences(this);
-            locationManager = new LocationManager(this);
+            policyManager = PolicyManager.getInstance(this);
+            decisionEngine = new BlockDecisionEngine(getPackageName());
+            blockEventWriter = BlockEventWriter.getInstance(this);
+            AppLabelCache.getInstance(this);
+            locationHub = LocationHub.getInstance(this);
+            locationHub.addSubscriber(this);
+            policyManager.addListener(this);
+
+            PolicySnapshot policy = policyManager.getSnapshot();
+            applyEventFilter(policy);
+
+            if (policy.safeModeEnabled && policy.locationEnabled) {
+                requestLocationRefresh(null);
+            }
 
         } catch (Exception e) {
         }
     }
 
-    // Verifica se o app deve ser bloqueado baseado na localização atual
-    private boolean shouldBlockBasedOnLocation() {
+    // Atualiza o filtro de eventos sempre que a política muda
+    @Override
+    public void onPolicyChanged(PolicySnapshot snapshot) {
+        mainHandler.post(() -> {
+            debouncer.clear();
+            applyEventFilter(policyManager.getSnapshot());
+        });
+    }
+
+    // Restringe a entrega de eventos aos pacotes relevantes para a política atual
+    private void applyEventFilter(PolicySnapshot policy) {
+        try {
+            int eventTypes = AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED;
+            Set<String> packages = null;
+
+            if (!policy.safeModeEnabled) {
+                eventTypes = 0;
+            } else if (!policy.globalEventDelivery) {
+                packages = new HashSet<>();
 
-        if (!preferences.isLocationEnabled()) {
-            return true;
+                for (String packageName : policy.getBlockedApps()) {
+                    if (!policy.isProtectedApp(packageName)) {
+                        packages.add(packageName);
+                    }
+                }
+
+                if (policy.hideModeActive) {
+                    for (String packageName : policy.getHiddenApps()) {
+                        if (!policy.isProtectedApp(packageName)) {
+                            packages.add(packageName);
+                        }
+                    }
+                }
+
+                // Uma lista vazia significa "todos os pacotes" para o sistema
+                if (packages.isEmpty()) {
+                    eventTypes = 0;
+                } else {
+                    // Observa também as próprias janelas para saber quando um app bloqueado
+                    // deixa o primeiro plano por causa da tela de bloqueio
+                    packages.add(getPackageName());
+                }
+            }
+
+            if (eventTypes == appliedEventTypes && Objects.equals(packages, appliedEventPackages)) {
+                return;
+            }
+
+            AccessibilityServiceInfo info = getServiceInfo();
+            if (info == null) {
+                return;
+            }
+
+            info.eventTypes = eventTypes;
+            info.packageNames = packages != null && !packages.isEmpty()
+                    ? packages.toArray(new String[0])
+                    : null;
+            setServiceInfo(info);
+
+            appliedEventTypes = eventTypes;
+            appliedEventPackages = packages;
+
+        } catch (Exception e) {
         }
+    }
 
-        double allowedLat = preferences.getAllowedLatitude();
-        double allowedLng = preferences.getAllowedLongitude();
-        int allowedRadius = preferences.getAllowedRadius();
+    // Agenda uma atualização de localização fora do callback, guardando o app a ser revalidado
+    private void requestLocationRefresh(String packageToRecheck) {
+        if (packageToRecheck != null) {
+            pendingLocationPackage = packageToRecheck;
+            pendingLocationSince = System.currentTimeMillis();
 
-        if (allowedLat == 0.0 && allowedLng == 0.0) {
-            return true;
+            mainHandler.removeCallbacks(expirePendingDecision);
+            mainHandler.postDelayed(expirePendingDecision, PENDING_DECISION_TIMEOUT);
         }
 
-        android.location.Location currentLoc = getCurrentLocationWithTimeout();
+        if (locationRefreshRequested) {
+            return;
+        }
 
-        if (currentLoc == null) {
-            return true;
+        locationRefreshRequested = true;
+        mainHandler.post(() -> {
+            try {
+                locationHub.requestSingleUpdate();
+            } catch (Exception e) {
+            } finally {
+                locationRefreshRequested = false;
+            }
+        });
+    }
+
+    // Revalida o app pendente com a nova localização e bloqueia tardiamente se necessário
+    private void reevaluatePendingDecision() {
+        String packageName = pendingLocationPackage;
+
+        if (packageName == null) {
+            return;
         }
 
-        float[] results = new float[1];
-        android.location.Location.distanceBetween(
-                currentLoc.getLatitude(),
-                currentLoc.getLongitude(),
-                allowedLat,
-                allowedLng,
-                results
-        );
+        if (System.currentTimeMillis() - pendingLocationSince > PENDING_DECISION_TIMEOUT) {
+            clearPendingDecision();
+            return;
+        }
 
-        float distance = results[0];
-        boolean isOutside = distance > allowedRadius;
+        PolicySnapshot policy = policyManager.getSnapshot();
 
-        return isOutside;
-    }
+        if (!policy.safeModeEnabled || !policy.isAppBlocked(packageName)) {
+            clearPendingDecision();
+            return;
+        }
 
-    // Obtém a localização atual com timeout e atualização se necessário
-    private android.location.Location getCurrentLocationWithTimeout() {
+        android.location.Location currentLoc = locationHub.getCurrentLocation();
 
-        try {
-            android.location.Location currentLoc = locationManager.getCurrentLocation();
+        if (currentLoc == null) {
+            return;
+        }
 
-            if (currentLoc != null) {
-                long locationAge = System.currentTimeMillis() - currentLoc.getTime();
+        clearPendingDecision();
 
-                if (locationAge > 300000) {
-                    locationManager.getLocationOnce();
+        boolean shouldBlock = BlockDecisionEngine.isBlock(decisionEngine.decideByLocation(policy, packageName, currentLoc));
 
-                    try {
-                        Thread.sleep(3000);
-                        android.location.Location newLoc = locationManager.getCurrentLocation();
-                        if (newLoc != null && newLoc.getTime() > currentLoc.getTime()) {
-                            return newLoc;
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                }
+        if (shouldBlock && isStillInForeground(packageName)) {
+            blockAppWithActivity(packageName);
+        }
+    }
 
-                return currentLoc;
-            }
+    // Descarta a decisão pendente de localização
+    private void clearPendingDecision() {
+        pendingLocationPackage = null;
+        mainHandler.removeCallbacks(expirePendingDecision);
+    }
 
-            locationManager.getLocationOnce();
+    // Verifica se o app ainda está na janela ativa antes de um bloqueio tardio. Sem a janela
+    // ativa, só confia no último evento quando todos os pacotes são observados: com o filtro
+    // aplicado, a saída para um app não observado não gera evento.
+    private boolean isStillInForeground(String packageName) {
+        try {
+            AccessibilityNodeInfo root = getRootInActiveWindow();
 
-            for (int i = 0; i < 8; i++) {
-                try {
-                    Thread.sleep(1000);
-                    currentLoc = locationManager.getCurrentLocation();
-                    if (currentLoc != null) {
-                        return currentLoc;
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+            if (root != null) {
+                CharSequence activePackage = root.getPackageName();
+                root.recycle();
+
+                if (activePackage != null) {
+                    return packageName.contentEquals(activePackage);
                 }
             }
 
-            return null;
-
         } catch (Exception e) {
-            return null;
         }
+
+        if (appliedEventPackages != null) {
+            return false;
+        }
+        return packageName.equals(lastWindowPackage);
+    }
+
+    // Callback chamado quando o LocationHub obtém uma nova localização
+    @Override
+    public void onLocationUpdate(android.location.Location location) {
+        reevaluatePendingDecision();
+    }
+
+    // Callback chamado quando o LocationHub confirma uma entrada ou saída da área (não implementado)
+    @Override
+    public void onGeofenceTransition(boolean isInsideAllowedArea) {
+    }
+
+    // Callback chamado quando um provedor de localização é desligado (não implementado)
+    @Override
+    public void onLocationProviderDisabled(String provider) {
     }
 
     // Bloqueia o aplicativo abrindo a tela de bloqueio
@@ -191,33 +339,6 @@ public class SafeModeAccessibilityService extends android.accessibilityservice.A
         }
     }
 
-    // Verifica se o aplicativo é crítico para o sistema e não deve ser bloqueado
-    private boolean isSystemApp(String packageName) {
-        String[] criticalSystemApps = {
-                "com.android.systemui",
-                "android",
-                "com.android.phone",
-                "com.android.settings",
-                "com.android.launcher",
-                "com.android.dialer",
-                "com.google.android.gms",
-                "com.android.packageinstaller",
-                "com.android.launcher3",
-                "com.sec.android.app.launcher",
-                "com.android.emergency",
-                "com.android.incallui",
-                "com.example.safemode"
-        };
-
-        for (String criticalApp : criticalSystemApps) {
-            if (packageName.equals(criticalApp) || packageName.startsWith(criticalApp + ".")) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     // Inicia o serviço de verificação de bloqueio para garantir efetividade
     private void startBlockVerification(String packageName) {
         try {
@@ -230,10 +351,6 @@ public class SafeModeAccessibilityService extends android.accessibilityservice.A
 
     // Registra o bloqueio do aplicativo no histórico de logs
     private void logBlockedApp(String packageName) {
-        try {
-            BlockLogger logger = new BlockLogger(this);
-            logger.logBlock(packageName, System.currentTimeMillis());
-        } catch (Exception e) {
-        }
+        blockEventWriter.enqueue(packageName, System.currentTimeMillis());
     }
 }
\ No newline at end of file
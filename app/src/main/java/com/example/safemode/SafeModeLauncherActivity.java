@@ -1,15 +1,10 @@
 package com.example.safemode;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.view.View;
 import android.widget.EditText;
 import android.widget.TextView;
 
@@ -17,31 +12,57 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.Normalizer;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Activity que funciona como launcher customizado do SafeMode.
- * Exibe todos os aplicativos instalados em formato de grade, permite busca por nome,
- * oculta apps configurados no modo de ocultação e atualiza a lista dinamicamente
- * quando apps são instalados ou removidos.
+ * Exibe todos os aplicativos instalados em formato de grade, permite busca por nome
+ * (feita em background sobre um AppSearchIndex), oculta apps configurados no modo de
+ * ocultação e atualiza a lista dinamicamente quando apps são instalados ou removidos.
+ * A lista, o índice e o mapa de apps por pacote só são refeitos quando o catálogo ou a
+ * política mudam. Antes de abrir um app aplica a mesma decisão do serviço de
+ * acessibilidade e, se o app estiver bloqueado, mostra a tela de bloqueio sem iniciar o
+ * app. Acima da grade mostra uma linha com os apps mais usados, segundo o
+ * LaunchFrequencyTracker, escondida enquanto há texto na busca.
  */
-public class SafeModeLauncherActivity extends AppCompatActivity {
+public class SafeModeLauncherActivity extends AppCompatActivity implements AppCatalog.CatalogChangeListener {
 
+    private static final int GRID_COLUMNS = 4;
     private RecyclerView recyclerViewApps;
     private LauncherAppAdapter adapter;
+    private View frequentAppsSection;
+    private RecyclerView recyclerViewFrequentApps;
+    private LauncherAppAdapter frequentAdapter;
+    private LaunchFrequencyTracker frequencyTracker;
+    private ClockTicker clockTicker;
+    private SimpleDateFormat timeFormat;
+    private SimpleDateFormat dateFormat;
     private EditText searchBar;
     private TextView tvTime;
     private TextView tvDate;
-    private AppPreferences preferences;
     private List<LauncherAppInfo> allApps;
-    private BroadcastReceiver packageChangeReceiver;
+    private final Map<String, LauncherAppInfo> appsByPackage = new HashMap<>();
+    private boolean hasFrequentApps = false;
+    private AppCatalog appCatalog;
+    private BlockDecisionEngine decisionEngine;
+    private LocationManager locationManager;
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger searchGeneration = new AtomicInteger();
+    private volatile AppSearchIndex searchIndex;
+    private Future<?> pendingSearch;
+    private long loadedCatalogVersion = -1;
+    private PolicySnapshot loadedPolicy;
 
     // Desabilita o botão voltar para manter o launcher ativo
     @Override
@@ -54,53 +75,95 @@ public class SafeModeLauncherActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_launcher);
 
-        preferences = new AppPreferences(this);
         allApps = new ArrayList<>();
+        decisionEngine = new BlockDecisionEngine(getPackageName());
+        locationManager = new LocationManager(this);
+        frequencyTracker = LaunchFrequencyTracker.getInstance(this);
 
         initializeViews();
         setupRecyclerView();
         setupSearchBar();
-        setupPackageChangeReceiver();
-        loadApps();
-        updateDateTime();
+
+        appCatalog = AppCatalog.getInstance(this);
+        appCatalog.addListener(this);
+
+        frequencyTracker.whenLoaded(() -> runOnUiThread(() -> {
+            if (!isDestroyed()) {
+                updateFrequentApps();
+            }
+        }));
+
+        timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        dateFormat = new SimpleDateFormat("EEEE, dd MMMM", Locale.getDefault());
+        clockTicker = new ClockTicker(this, this::updateDateTime);
     }
 
-    // Recarrega apps e atualiza data/hora ao retomar a activity
+    // Passa a atualizar o relógio enquanto a activity está visível
+    @Override
+    protected void onStart() {
+        super.onStart();
+        clockTicker.start();
+    }
+
+    // Ao retomar a activity, refaz a lista só se o catálogo ou a política (modo de ocultação,
+    // apps bloqueados) mudaram desde a última carga
     @Override
     protected void onResume() {
         super.onResume();
-        loadApps();
-        updateDateTime();
+
+        AppCatalogSnapshot snapshot = appCatalog.getSnapshot();
+        if (snapshot.version != loadedCatalogVersion
+                || PolicyManager.getInstance(this).getSnapshot() != loadedPolicy) {
+            loadApps(snapshot);
+        } else {
+            updateFrequentApps();
+        }
+        refreshLocationIfNeeded();
     }
 
-    // Remove o receiver ao destruir a activity
+    // Para de atualizar o relógio quando a activity deixa de ficar visível
+    @Override
+    protected void onStop() {
+        super.onStop();
+        clockTicker.stop();
+    }
+
+    // Deixa de observar o catálogo ao destruir a activity
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (packageChangeReceiver != null) {
-            try {
-                unregisterReceiver(packageChangeReceiver);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+        appCatalog.removeListener(this);
+        searchExecutor.shutdownNow();
+        locationManager.release();
+    }
+
+    // Atualiza a grade quando um app é instalado, removido ou alterado
+    @Override
+    public void onCatalogChanged(AppCatalogSnapshot snapshot) {
+        loadApps(snapshot);
     }
 
     // Inicializa as views do layout
     private void initializeViews() {
         recyclerViewApps = findViewById(R.id.recycler_apps);
+        frequentAppsSection = findViewById(R.id.frequent_apps_section);
+        recyclerViewFrequentApps = findViewById(R.id.recycler_frequent_apps);
         searchBar = findViewById(R.id.search_bar);
         tvTime = findViewById(R.id.tv_time);
         tvDate = findViewById(R.id.tv_date);
     }
 
-    // Configura o RecyclerView em grade com 4 colunas
+    // Configura o RecyclerView em grade com 4 colunas e a linha de apps mais usados
     private void setupRecyclerView() {
-        GridLayoutManager layoutManager = new GridLayoutManager(this, 4);
+        GridLayoutManager layoutManager = new GridLayoutManager(this, GRID_COLUMNS);
         recyclerViewApps.setLayoutManager(layoutManager);
 
         adapter = new LauncherAppAdapter(this, new ArrayList<>(), app -> launchApp(app));
         recyclerViewApps.setAdapter(adapter);
+
+        recyclerViewFrequentApps.setLayoutManager(new GridLayoutManager(this, GRID_COLUMNS));
+        frequentAdapter = new LauncherAppAdapter(this, new ArrayList<>(), app -> launchApp(app));
+        recyclerViewFrequentApps.setAdapter(frequentAdapter);
     }
 
     // Configura a barra de busca com filtro em tempo real
@@ -113,6 +176,7 @@ public class SafeModeLauncherActivity extends AppCompatActivity {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 filterApps(s.toString());
+                updateFrequentAppsVisibility();
             }
 
             @Override
@@ -121,120 +185,164 @@ public class SafeModeLauncherActivity extends AppCompatActivity {
         });
     }
 
-    // Configura o receiver para detectar instalação/remoção de apps
-    private void setupPackageChangeReceiver() {
-        packageChangeReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                loadApps();
+    // Monta a lista de aplicativos a partir do catálogo, sem consultar o PackageManager,
+    // e reconstrói o índice de busca em background antes de reaplicar o filtro atual
+    private void loadApps(AppCatalogSnapshot snapshot) {
+        PolicySnapshot policy = PolicyManager.getInstance(this).getSnapshot();
+        loadedCatalogVersion = snapshot.version;
+        loadedPolicy = policy;
+
+        allApps.clear();
+        allApps.addAll(getInstalledApps(snapshot, policy));
+
+        appsByPackage.clear();
+        for (LauncherAppInfo app : allApps) {
+            if (!appsByPackage.containsKey(app.packageName)) {
+                appsByPackage.put(app.packageName, app);
             }
-        };
+        }
 
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
-        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
-        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
-        filter.addDataScheme("package");
-        registerReceiver(packageChangeReceiver, filter);
+        List<LauncherAppInfo> apps = new ArrayList<>(allApps);
+        searchExecutor.execute(() -> searchIndex = AppSearchIndex.build(apps));
+        filterApps(searchBar.getText().toString());
+        updateFrequentApps();
     }
 
-    // Carrega a lista de aplicativos instalados em background
-    private void loadApps() {
-        new Thread(() -> {
-            List<LauncherAppInfo> apps = getInstalledApps();
+    // Monta a linha com os apps mais usados que estão visíveis na grade
+    private void updateFrequentApps() {
+        List<LauncherAppInfo> frequentApps = new ArrayList<>();
 
-            runOnUiThread(() -> {
-                allApps.clear();
-                allApps.addAll(apps);
-                filterApps(searchBar.getText().toString());
-            });
-        }).start();
+        for (String packageName : frequencyTracker.getTopPackages(GRID_COLUMNS * 2)) {
+            LauncherAppInfo app = appsByPackage.get(packageName);
+            if (app != null && frequentApps.size() < GRID_COLUMNS) {
+                frequentApps.add(app);
+            }
+        }
+
+        frequentAdapter.updateApps(frequentApps);
+        hasFrequentApps = !frequentApps.isEmpty();
+        updateFrequentAppsVisibility();
     }
 
-    // Obtém todos os aplicativos instalados com intent de launcher
-    private List<LauncherAppInfo> getInstalledApps() {
-        List<LauncherAppInfo> apps = new ArrayList<>();
-        PackageManager pm = getPackageManager();
+    // Mostra a linha de apps mais usados só quando ela tem itens e a busca está vazia
+    private void updateFrequentAppsVisibility() {
+        boolean visible = hasFrequentApps && searchBar.getText().length() == 0;
+        frequentAppsSection.setVisibility(visible ? View.VISIBLE : View.GONE);
+    }
 
-        Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
-        mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
-        List<ResolveInfo> resolveInfos = pm.queryIntentActivities(mainIntent, 0);
+    // Obtém os aplicativos do catálogo, aplicando o modo de ocultação da política
+    private List<LauncherAppInfo> getInstalledApps(AppCatalogSnapshot snapshot, PolicySnapshot policy) {
+        List<LauncherAppInfo> apps = new ArrayList<>();
 
-        boolean isHideModeActive = preferences.isHideModeActive();
-        Set<String> hiddenApps = preferences.getHiddenApps();
+        boolean isHideModeActive = policy.hideModeActive;
 
-        for (ResolveInfo resolveInfo : resolveInfos) {
-            String packageName = resolveInfo.activityInfo.packageName;
+        for (AppCatalogEntry entry : snapshot.getEntries()) {
+            String packageName = entry.packageName;
 
             if (isHideModeActive && packageName.equals(getPackageName())) {
                 continue;
             }
 
-            if (isHideModeActive && hiddenApps.contains(packageName)) {
+            if (isHideModeActive && policy.isAppHidden(packageName)) {
                 continue;
             }
 
-            String appName = resolveInfo.loadLabel(pm).toString();
-            Drawable icon = resolveInfo.loadIcon(pm);
-
             LauncherAppInfo appInfo = new LauncherAppInfo();
             appInfo.packageName = packageName;
-            appInfo.appName = appName;
-            appInfo.icon = icon;
-            appInfo.activityName = resolveInfo.activityInfo.name;
+            appInfo.appName = entry.label;
+            appInfo.activityName = entry.activityName;
+            appInfo.lastUpdateTime = entry.lastUpdateTime;
+            appInfo.isBlocked = !decisionEngine.isExempt(policy, packageName) && policy.isAppBlocked(packageName);
 
             apps.add(appInfo);
         }
 
-        Collections.sort(apps, (a, b) -> a.appName.compareToIgnoreCase(b.appName));
-
         return apps;
     }
 
-    // Filtra os aplicativos baseado na query de busca
+    // Filtra os aplicativos em background, descartando a busca anterior ainda não concluída
     private void filterApps(String query) {
-        List<LauncherAppInfo> filteredApps = new ArrayList<>();
+        int generation = searchGeneration.incrementAndGet();
 
-        if (query.isEmpty()) {
-            filteredApps.addAll(allApps);
-        } else {
-            String normalizedQuery = removeAccents(query.toLowerCase());
-            for (LauncherAppInfo app : allApps) {
-                String normalizedAppName = removeAccents(app.appName.toLowerCase());
-                if (normalizedAppName.contains(normalizedQuery)) {
-                    filteredApps.add(app);
-                }
-            }
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
         }
 
-        adapter.updateApps(filteredApps);
-    }
+        pendingSearch = searchExecutor.submit(() -> {
+            AppSearchIndex index = searchIndex;
+            if (index == null || generation != searchGeneration.get()) {
+                return;
+            }
+
+            List<LauncherAppInfo> filteredApps = index.search(query);
 
-    // Remove acentos do texto para busca mais flexível
-    private String removeAccents(String text) {
-        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
-        return normalized.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+            runOnUiThread(() -> {
+                if (generation == searchGeneration.get() && !isDestroyed()) {
+                    adapter.updateApps(filteredApps);
+                }
+            });
+        });
     }
 
-    // Abre o aplicativo selecionado
+    // Abre o aplicativo selecionado, ou a tela de bloqueio se a política não permitir
     private void launchApp(LauncherAppInfo app) {
+        PolicySnapshot policy = PolicyManager.getInstance(this).getSnapshot();
+        int decision = decisionEngine.decide(policy, app.packageName, locationManager.getCurrentLocation());
+
+        if (BlockDecisionEngine.needsLocationRefresh(decision)) {
+            locationManager.getLocationOnce();
+        }
+
+        if (BlockDecisionEngine.isBlock(decision)) {
+            showBlockScreen(app.packageName);
+            return;
+        }
+
         try {
             Intent intent = getPackageManager().getLaunchIntentForPackage(app.packageName);
             if (intent != null) {
                 startActivity(intent);
+                frequencyTracker.recordLaunch(app.packageName);
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    // Atualiza a exibição de data e hora a cada minuto
-    private void updateDateTime() {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        SimpleDateFormat dateFormat = new SimpleDateFormat("EEEE, dd MMMM", Locale.getDefault());
+    // Mostra a tela de bloqueio diretamente, sem iniciar o app bloqueado, e registra o bloqueio
+    private void showBlockScreen(String packageName) {
+        try {
+            Intent blockIntent = new Intent(this, SimpleBlockActivity.class);
+            blockIntent.putExtra("blocked_package", packageName);
+            blockIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
+                    Intent.FLAG_ACTIVITY_NO_ANIMATION |
+                    Intent.FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS);
+            startActivity(blockIntent);
+
+            BlockEventWriter.getInstance(this).enqueue(packageName, System.currentTimeMillis());
+        } catch (Exception e) {
+        }
+    }
+
+    // Pede uma leitura de localização quando a política depende dela, para decidir na hora do toque
+    private void refreshLocationIfNeeded() {
+        PolicySnapshot policy = PolicyManager.getInstance(this).getSnapshot();
+
+        if (policy.safeModeEnabled && policy.locationEnabled && policy.hasAllowedArea()) {
+            locationManager.getLocationOnce();
+        }
+    }
+
+    // Atualiza a exibição de data e hora a cada tick do ClockTicker, reutilizando os formatadores
+    private void updateDateTime(boolean timeZoneChanged) {
+        if (timeZoneChanged) {
+            TimeZone timeZone = TimeZone.getDefault();
+            timeFormat.setTimeZone(timeZone);
+            dateFormat.setTimeZone(timeZone);
+        }
 
-        tvTime.setText(timeFormat.format(new Date()));
-        tvDate.setText(dateFormat.format(new Date()));
-        tvTime.postDelayed(this::updateDateTime, 60000);
+        Date now = new Date();
+        tvTime.setText(timeFormat.format(now));
+        tvDate.setText(dateFormat.format(now));
     }
 }
@@ -59,6 +59,7 @@ public class SafeModeService extends Service implements LocationManager.Location
         super.onDestroy();
 
         stopLocationMonitoring();
+        locationManager.release();
     }
 
     // Retorna null pois este serviço não é bindable
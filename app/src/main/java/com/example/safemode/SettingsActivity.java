@@ -23,6 +23,9 @@ import androidx.core.content.ContextCompat;
 
 import org.json.JSONObject;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Activity de configurações do aplicativo SafeMode.
  * Gerencia permissões necessárias, exibe status de configurações, estatísticas de bloqueio
@@ -51,6 +54,7 @@ public class SettingsActivity extends AppCompatActivity {
     private TextView textLauncherStatus;
     private AppPreferences preferences;
     private BlockLogger blockLogger;
+    private final ExecutorService logExecutor = Executors.newSingleThreadExecutor();
 
     // Processa o resultado da solicitação de permissões
     @Override
@@ -115,6 +119,13 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
+    // Encerra a thread de leitura do histórico quando a activity é destruída
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        logExecutor.shutdownNow();
+    }
+
     // Configura as barras do sistema para tela cheia
     private void setupSystemBars() {
         try {
@@ -172,28 +183,38 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
-    // Carrega as estatísticas de bloqueios do dia atual
+    // Carrega as estatísticas de bloqueios do dia atual em background, já que a leitura
+    // grava os eventos pendentes em disco antes de consultar os contadores
     private void loadTodayStats() {
         try {
-            JSONObject stats = blockLogger.getTodayStats();
+            logExecutor.execute(() -> {
+                String statsText;
 
-            int totalBlocks = stats.optInt("total_blocks_today", 0);
-            int appsBlocked = stats.optInt("apps_blocked_today", 0);
-            String mostBlocked = stats.optString("most_blocked_app", "Nenhum");
+                try {
+                    JSONObject stats = blockLogger.getTodayStats();
 
-            String statsText = String.format(
-                    "Hoje: %d bloqueios em %d apps\nMais bloqueado: %s",
-                    totalBlocks, appsBlocked, mostBlocked
-            );
+                    int totalBlocks = stats.optInt("total_blocks_today", 0);
+                    int appsBlocked = stats.optInt("apps_blocked_today", 0);
+                    String mostBlocked = stats.optString("most_blocked_app", "Nenhum");
 
-            if (textTodayStats != null) {
-                textTodayStats.setText(statsText);
-            }
+                    statsText = String.format(
+                            "Hoje: %d bloqueios em %d apps\nMais bloqueado: %s",
+                            totalBlocks, appsBlocked, mostBlocked
+                    );
+
+                } catch (Exception e) {
+                    statsText = "Erro ao carregar estatísticas";
+                }
+
+                String text = statsText;
+                runOnUiThread(() -> {
+                    if (!isDestroyed() && textTodayStats != null) {
+                        textTodayStats.setText(text);
+                    }
+                });
+            });
 
         } catch (Exception e) {
-            if (textTodayStats != null) {
-                textTodayStats.setText("Erro ao carregar estatísticas");
-            }
         }
     }
 
@@ -370,39 +391,75 @@ public class SettingsActivity extends AppCompatActivity {
         }
     }
 
-    // Exibe o histórico de bloqueios dos últimos 7 dias
+    // Lê o histórico de bloqueios dos últimos 7 dias em background e o exibe em seguida
     private void showBlockLogs() {
-
         try {
-            StringBuilder logsText = new StringBuilder();
+            logExecutor.execute(() -> {
+                String logsText;
+                String error = null;
+
+                try {
+                    logsText = buildBlockLogsText();
+                } catch (Exception e) {
+                    logsText = null;
+                    error = e.getMessage();
+                }
+
+                String text = logsText;
+                String message = error;
+                runOnUiThread(() -> {
+                    if (isDestroyed()) {
+                        return;
+                    }
+                    if (text != null) {
+                        showBlockLogsDialog(text);
+                    } else {
+                        showBlockLogsError(message);
+                    }
+                });
+            });
+
+        } catch (Exception e) {
+        }
+    }
 
-            long sevenDaysAgo = System.currentTimeMillis() - (7L * 24 * 60 * 60 * 1000);
-            var recentLogs = blockLogger.getLogEntriesInPeriod(sevenDaysAgo, System.currentTimeMillis());
+    // Monta o texto do histórico dos últimos 7 dias, chamado fora da thread principal
+    private String buildBlockLogsText() {
+        StringBuilder logsText = new StringBuilder();
 
-            if (recentLogs.isEmpty()) {
-                logsText.append("Nenhum bloqueio registrado nos últimos 7 dias.");
-            } else {
-                logsText.append("Bloqueios dos últimos 7 dias:\n\n");
+        long now = System.currentTimeMillis();
+        long sevenDaysAgo = now - (7L * 24 * 60 * 60 * 1000);
+        BlockLogPage recentLogs = blockLogger.query(sevenDaysAgo, now, 20, BlockLogPage.FIRST_PAGE);
 
-                int maxEntries = Math.min(recentLogs.size(), 20);
-                for (int i = 0; i < maxEntries; i++) {
-                    JSONObject log = recentLogs.get(i);
+        if (recentLogs.entries.isEmpty()) {
+            logsText.append("Nenhum bloqueio registrado nos últimos 7 dias.");
+        } else {
+            logsText.append("Bloqueios dos últimos 7 dias:\n\n");
 
-                    String appName = log.optString("app_name", "App desconhecido");
-                    String time = log.optString("readable_time", "Horário desconhecido");
+            for (BlockLogEntry log : recentLogs.entries) {
+                String appName = blockLogger.getAppName(log.packageName);
+                String time = blockLogger.formatTimestamp(log.timestamp);
 
-                    logsText.append("• ").append(appName).append("\n")
-                            .append("  ").append(time).append("\n\n");
-                }
+                logsText.append("• ").append(appName).append("\n")
+                        .append("  ").append(time).append("\n\n");
+            }
 
-                if (recentLogs.size() > 20) {
-                    logsText.append("... e mais ").append(recentLogs.size() - 20).append(" registros");
-                }
+            if (recentLogs.hasMore()) {
+                int totalLogs = blockLogger.countInPeriod(sevenDaysAgo, now);
+                logsText.append("... e mais ").append(totalLogs - recentLogs.entries.size()).append(" registros");
             }
+        }
+
+        return logsText.toString();
+    }
 
+    // Exibe o diálogo com o histórico já montado
+    private void showBlockLogsDialog(String logsText) {
+
+        try {
             AlertDialog dialog = new AlertDialog.Builder(this)
                     .setTitle("Histórico de Bloqueios")
-                    .setMessage(logsText.toString())
+                    .setMessage(logsText)
                     .setPositiveButton("OK", null)
                     .setNeutralButton("Limpar Histórico", (dialogInterface, which) -> confirmClearLogs())
                     .setIcon(android.R.drawable.ic_menu_recent_history)
@@ -423,9 +480,16 @@ public class SettingsActivity extends AppCompatActivity {
             dialog.getButton(AlertDialog.BUTTON_NEUTRAL).setTextColor(getResources().getColor(android.R.color.white));
 
         } catch (Exception e) {
+            showBlockLogsError(e.getMessage());
+        }
+    }
+
+    // Exibe o diálogo de erro do histórico
+    private void showBlockLogsError(String message) {
+        try {
             AlertDialog errorDialog = new AlertDialog.Builder(this)
                     .setTitle("Erro")
-                    .setMessage("Erro ao carregar histórico: " + e.getMessage())
+                    .setMessage("Erro ao carregar histórico: " + message)
                     .setPositiveButton("OK", null)
                     .setIcon(android.R.drawable.ic_dialog_alert)
                     .create();
@@ -433,6 +497,8 @@ public class SettingsActivity extends AppCompatActivity {
             errorDialog.show();
             errorDialog.getWindow().setBackgroundDrawableResource(android.R.color.holo_red_dark);
             errorDialog.getButton(AlertDialog.BUTTON_POSITIVE).setTextColor(getResources().getColor(android.R.color.white));
+
+        } catch (Exception e) {
         }
     }
 
@@ -444,13 +510,28 @@ public class SettingsActivity extends AppCompatActivity {
                     .setTitle("Limpar Histórico")
                     .setMessage("Apagar todo o histórico de bloqueios?\n\nEsta ação não pode ser desfeita.")
                     .setPositiveButton("Limpar", (dialogInterface, which) -> {
-                        try {
-                            blockLogger.clearAllLogs();
-                            showMessage("Histórico limpo com sucesso");
-                            loadTodayStats(); // Atualizar estatísticas
-                        } catch (Exception e) {
-                            showMessage("Erro ao limpar histórico");
-                        }
+                        logExecutor.execute(() -> {
+                            boolean cleared;
+                            try {
+                                blockLogger.clearAllLogs();
+                                cleared = true;
+                            } catch (Exception e) {
+                                cleared = false;
+                            }
+
+                            boolean success = cleared;
+                            runOnUiThread(() -> {
+                                if (isDestroyed()) {
+                                    return;
+                                }
+                                if (success) {
+                                    showMessage("Histórico limpo com sucesso");
+                                    loadTodayStats(); // Atualizar estatísticas
+                                } else {
+                                    showMessage("Erro ao limpar histórico");
+                                }
+                            });
+                        });
                     })
                     .setNegativeButton("Cancelar", null)
                     .setIcon(android.R.drawable.ic_menu_delete)
@@ -227,16 +227,8 @@ public class SimpleBlockActivity extends Activity {
             return "este aplicativo";
         }
 
-        try {
-            android.content.pm.PackageManager pm = getPackageManager();
-            android.content.pm.ApplicationInfo appInfo = pm.getApplicationInfo(packageName, 0);
-            String realAppName = pm.getApplicationLabel(appInfo).toString();
-
-            return realAppName;
-
-        } catch (Exception e) {
-            return "este aplicativo";
-        }
+        String realAppName = AppLabelCache.getInstance(this).getLabel(packageName);
+        return realAppName != null ? realAppName : "este aplicativo";
     }
 
     // Abre a tela de informações do aplicativo bloqueado
@@ -0,0 +1,145 @@
+package com.example.safemode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lista de aplicativos críticos do sistema que nunca devem ser bloqueados ou ocultados.
+ * Os prefixos são compilados uma única vez em uma árvore de caracteres, de forma que a
+ * consulta de um pacote exato ou de um subpacote (ex: "com.android.settings.intelligence")
+ * percorre o nome uma vez sem criar objetos. Também aceita um conjunto de pacotes
+ * resolvidos no dispositivo, como o launcher padrão e apps com FLAG_SYSTEM.
+ */
+public final class SystemAppAllowlist {
+
+    private static final String[] DEFAULT_CRITICAL_PACKAGES = {
+            "com.android.systemui",
+            "android",
+            "com.android.phone",
+            "com.android.settings",
+            "com.android.launcher",
+            "com.android.dialer",
+            "com.google.android.gms",
+            "com.android.packageinstaller",
+            "com.android.launcher3",
+            "com.sec.android.app.launcher",
+            "com.android.emergency",
+            "com.android.incallui",
+            "com.example.safemode"
+    };
+
+    private static final SystemAppAllowlist DEFAULT =
+            compile(Collections.emptyList(), Collections.emptySet());
+
+    private final Node root;
+    private final Set<String> resolvedPackages;
+
+    // Construtor privado, use compile ou getDefault para obter uma instância
+    private SystemAppAllowlist(Node root, Set<String> resolvedPackages) {
+        this.root = root;
+        this.resolvedPackages = resolvedPackages;
+    }
+
+    // Retorna a lista padrão, sem extensões do usuário nem pacotes resolvidos
+    public static SystemAppAllowlist getDefault() {
+        return DEFAULT;
+    }
+
+    // Compila a lista padrão somada aos prefixos do usuário e aos pacotes resolvidos no dispositivo
+    public static SystemAppAllowlist compile(Collection<String> extraPackages, Set<String> resolvedPackages) {
+        Node root = new Node();
+
+        for (String packageName : DEFAULT_CRITICAL_PACKAGES) {
+            root.insert(packageName);
+        }
+
+        for (String packageName : extraPackages) {
+            String cleanPackageName = packageName.trim();
+            if (!cleanPackageName.isEmpty()) {
+                root.insert(cleanPackageName);
+            }
+        }
+
+        Set<String> resolved = Collections.unmodifiableSet(new HashSet<>(resolvedPackages));
+        return new SystemAppAllowlist(root, resolved);
+    }
+
+    // Verifica se o pacote é protegido por prefixo ou por resolução no dispositivo
+    public boolean isProtected(String packageName) {
+        if (packageName == null) {
+            return false;
+        }
+        return matchesPrefix(packageName) || resolvedPackages.contains(packageName);
+    }
+
+    // Verifica se o pacote é igual a um prefixo da lista ou um subpacote dele
+    public boolean matchesPrefix(String packageName) {
+        Node node = root;
+        int length = packageName.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = packageName.charAt(i);
+
+            if (c == '.' && node.terminal) {
+                return true;
+            }
+
+            node = node.child(c);
+            if (node == null) {
+                return false;
+            }
+        }
+
+        return node.terminal;
+    }
+
+    // Nó da árvore de caracteres, com filhos em arrays paralelos para busca sem alocação
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        // Insere um nome de pacote a partir deste nó
+        void insert(String packageName) {
+            Node node = this;
+            for (int i = 0; i < packageName.length(); i++) {
+                node = node.getOrCreateChild(packageName.charAt(i));
+            }
+            node.terminal = true;
+        }
+
+        // Retorna o filho para o caractere informado ou null
+        Node child(char c) {
+            char[] localKeys = keys;
+            for (int i = 0; i < localKeys.length; i++) {
+                if (localKeys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        // Retorna o filho existente ou cria um novo para o caractere informado
+        private Node getOrCreateChild(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+
+            int size = keys.length;
+            char[] newKeys = new char[size + 1];
+            Node[] newChildren = new Node[size + 1];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(children, 0, newChildren, 0, size);
+
+            Node created = new Node();
+            newKeys[size] = c;
+            newChildren[size] = created;
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+    }
+}
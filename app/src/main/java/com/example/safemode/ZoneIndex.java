@@ -0,0 +1,278 @@
+package com.example.safemode;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Índice espacial imutável das áreas permitidas.
+ * Divide o globo em células de geohash com 5 caracteres (cerca de 4,9 km) e guarda cada
+ * área em todas as células que a sua caixa envolvente toca, em arrays ordenados pela chave
+ * da célula. Uma consulta olha só a célula da localização e as oito vizinhas. Para um
+ * círculo calcula a distância por projeção equiretangular e só chama
+ * Location.distanceBetween quando essa aproximação cai perto da borda. Para um polígono
+ * projeta o ponto no plano da área, descarta a área pela caixa envolvente quando ela já
+ * está mais longe que a borda mais próxima conhecida e, senão, faz ray casting e mede a
+ * distância até a aresta mais próxima em uma única passada pelas arestas pré-calculadas.
+ * Áreas grandes demais para o índice ficam em uma lista verificada sempre. A consulta não
+ * aloca memória.
+ */
+public final class ZoneIndex {
+
+    static final ZoneIndex EMPTY = build(Collections.<GeofenceZone>emptyList());
+    private static final int LAT_BITS = 12;
+    private static final int LNG_BITS = 13;
+    private static final int LAT_CELLS = 1 << LAT_BITS;
+    private static final int LNG_CELLS = 1 << LNG_BITS;
+    private static final double CELL_LAT_DEGREES = 180.0 / LAT_CELLS;
+    private static final double CELL_LNG_DEGREES = 360.0 / LNG_CELLS;
+    private static final double METERS_PER_DEGREE = 111320;
+    private static final int MAX_CELLS_PER_ZONE = 64;
+    private static final double PREFILTER_TOLERANCE = 0.01;
+    private static final double PREFILTER_MIN_BAND = 5;
+    private final List<GeofenceZone> zones;
+    private final long[] cellKeys;
+    private final int[] cellStarts;
+    private final GeofenceZone[] cellZones;
+    private final GeofenceZone[] largeZones;
+
+    // Construtor privado, use build para criar o índice
+    private ZoneIndex(List<GeofenceZone> zones, long[] cellKeys, int[] cellStarts,
+                      GeofenceZone[] cellZones, GeofenceZone[] largeZones) {
+        this.zones = zones;
+        this.cellKeys = cellKeys;
+        this.cellStarts = cellStarts;
+        this.cellZones = cellZones;
+        this.largeZones = largeZones;
+    }
+
+    // Cria o índice para a lista de áreas
+    static ZoneIndex build(List<GeofenceZone> zones) {
+        List<GeofenceZone> copy = Collections.unmodifiableList(new ArrayList<>(zones));
+        Map<Long, List<GeofenceZone>> cells = new TreeMap<>();
+        List<GeofenceZone> large = new ArrayList<>();
+
+        for (GeofenceZone zone : copy) {
+            double latSpan = zone.radius / METERS_PER_DEGREE;
+            double maxLat = Math.min(89.9, Math.abs(zone.latitude) + latSpan);
+            double lngSpan = zone.radius / (METERS_PER_DEGREE * Math.cos(Math.toRadians(maxLat)));
+
+            int minLatIndex = latIndexOf(zone.latitude - latSpan);
+            int maxLatIndex = latIndexOf(zone.latitude + latSpan);
+            int firstLngIndex = lngIndexOf(zone.longitude - lngSpan);
+            int lngCount = (int) Math.floor((zone.longitude + lngSpan + 180) / CELL_LNG_DEGREES)
+                    - (int) Math.floor((zone.longitude - lngSpan + 180) / CELL_LNG_DEGREES) + 1;
+
+            if ((long) (maxLatIndex - minLatIndex + 1) * lngCount > MAX_CELLS_PER_ZONE) {
+                large.add(zone);
+                continue;
+            }
+
+            for (int latIndex = minLatIndex; latIndex <= maxLatIndex; latIndex++) {
+                for (int i = 0; i < lngCount; i++) {
+                    long key = cellKey(latIndex, (firstLngIndex + i) % LNG_CELLS);
+                    List<GeofenceZone> list = cells.get(key);
+
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        cells.put(key, list);
+                    }
+                    list.add(zone);
+                }
+            }
+        }
+
+        long[] cellKeys = new long[cells.size()];
+        int[] cellStarts = new int[cells.size() + 1];
+        List<GeofenceZone> flat = new ArrayList<>();
+        int cell = 0;
+
+        for (Map.Entry<Long, List<GeofenceZone>> entry : cells.entrySet()) {
+            cellKeys[cell] = entry.getKey();
+            cellStarts[cell] = flat.size();
+            flat.addAll(entry.getValue());
+            cell++;
+        }
+        cellStarts[cell] = flat.size();
+
+        return new ZoneIndex(copy, cellKeys, cellStarts, flat.toArray(new GeofenceZone[0]),
+                large.toArray(new GeofenceZone[0]));
+    }
+
+    // Retorna se não há nenhuma área cadastrada
+    public boolean isEmpty() {
+        return zones.isEmpty();
+    }
+
+    // Retorna a lista imutável de áreas
+    public List<GeofenceZone> getZones() {
+        return zones;
+    }
+
+    // Procura as áreas próximas da localização e preenche o resultado. Com packageName
+    // informado, só considera as áreas que liberam esse app.
+    void query(double latitude, double longitude, String packageName, Query out) {
+        out.zone = null;
+        out.depth = -Float.MAX_VALUE;
+        out.nearestBoundary = (float) (Math.min(CELL_LAT_DEGREES,
+                CELL_LNG_DEGREES * Math.cos(Math.toRadians(latitude))) * METERS_PER_DEGREE);
+
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        int latIndex = latIndexOf(latitude);
+        int lngIndex = lngIndexOf(longitude);
+
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            int neighborLat = latIndex + dLat;
+            if (neighborLat < 0 || neighborLat >= LAT_CELLS) {
+                continue;
+            }
+
+            for (int dLng = -1; dLng <= 1; dLng++) {
+                int neighborLng = (lngIndex + dLng + LNG_CELLS) % LNG_CELLS;
+                int cell = Arrays.binarySearch(cellKeys, cellKey(neighborLat, neighborLng));
+
+                if (cell < 0) {
+                    continue;
+                }
+
+                for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                    evaluate(cellZones[i], latitude, longitude, cosLatitude, packageName, out);
+                }
+            }
+        }
+
+        for (GeofenceZone zone : largeZones) {
+            evaluate(zone, latitude, longitude, cosLatitude, packageName, out);
+        }
+    }
+
+    // Mede a profundidade da localização na área e atualiza o resultado com a área mais profunda
+    // e a borda mais próxima
+    private static void evaluate(GeofenceZone zone, double latitude, double longitude, double cosLatitude,
+                                 String packageName, Query out) {
+        if (packageName != null && !zone.allowsApp(packageName)) {
+            return;
+        }
+
+        double deltaLng = GeofenceZone.normalizeLongitude(longitude - zone.longitude);
+        double northMeters = (latitude - zone.latitude) * METERS_PER_DEGREE;
+        double depth;
+
+        if (zone.isPolygon()) {
+            double eastMeters = deltaLng * METERS_PER_DEGREE * zone.cosLatitude;
+            double outsideX = Math.max(0, Math.max(zone.minX - eastMeters, eastMeters - zone.maxX));
+            double outsideY = Math.max(0, Math.max(zone.minY - northMeters, northMeters - zone.maxY));
+
+            if (out.zone != null && Math.sqrt(outsideX * outsideX + outsideY * outsideY) >= out.nearestBoundary) {
+                return;
+            }
+            depth = polygonDepth(zone, eastMeters, northMeters);
+
+        } else {
+            double eastMeters = deltaLng * METERS_PER_DEGREE * cosLatitude;
+            double distance = Math.sqrt(northMeters * northMeters + eastMeters * eastMeters);
+
+            double band = Math.max(PREFILTER_MIN_BAND, zone.radius * PREFILTER_TOLERANCE);
+            if (Math.abs(distance - zone.radius) < band) {
+                Location.distanceBetween(latitude, longitude, zone.latitude, zone.longitude, out.results);
+                distance = out.results[0];
+            }
+            depth = zone.radius - distance;
+        }
+
+        float boundary = (float) Math.abs(depth);
+        if (boundary < out.nearestBoundary) {
+            out.nearestBoundary = boundary;
+        }
+
+        if (out.zone == null || depth > out.depth) {
+            out.zone = zone;
+            out.depth = (float) depth;
+        }
+    }
+
+    // Retorna a distância do ponto projetado até a borda do polígono, positiva dentro e negativa fora.
+    // O ray casting usa a inclinação pré-calculada de cada aresta e a distância usa a projeção do
+    // ponto sobre a aresta, limitada às suas pontas.
+    private static double polygonDepth(GeofenceZone zone, double x, double y) {
+        double[] vertexX = zone.vertexX;
+        double[] vertexY = zone.vertexY;
+        double[] edgeX = zone.edgeX;
+        double[] edgeY = zone.edgeY;
+        double[] edgeSlope = zone.edgeSlope;
+        double[] edgeInverseLengthSquared = zone.edgeInverseLengthSquared;
+        boolean inside = false;
+        double nearest = Double.MAX_VALUE;
+
+        for (int i = 0; i < edgeX.length; i++) {
+            double offsetX = x - vertexX[i];
+            double offsetY = y - vertexY[i];
+
+            if ((vertexY[i] > y) != (vertexY[i + 1] > y) && offsetX < offsetY * edgeSlope[i]) {
+                inside = !inside;
+            }
+
+            double t = (offsetX * edgeX[i] + offsetY * edgeY[i]) * edgeInverseLengthSquared[i];
+            if (t < 0) {
+                t = 0;
+            } else if (t > 1) {
+                t = 1;
+            }
+
+            double dx = offsetX - t * edgeX[i];
+            double dy = offsetY - t * edgeY[i];
+            double squared = dx * dx + dy * dy;
+            if (squared < nearest) {
+                nearest = squared;
+            }
+        }
+
+        double distance = Math.sqrt(nearest);
+        return inside ? distance : -distance;
+    }
+
+    // Retorna o índice da linha de células para a latitude
+    private static int latIndexOf(double latitude) {
+        int index = (int) Math.floor((latitude + 90) / CELL_LAT_DEGREES);
+        return Math.max(0, Math.min(LAT_CELLS - 1, index));
+    }
+
+    // Retorna o índice da coluna de células para a longitude, dando a volta em ±180°
+    private static int lngIndexOf(double longitude) {
+        int index = (int) Math.floor((longitude + 180) / CELL_LNG_DEGREES);
+        return ((index % LNG_CELLS) + LNG_CELLS) % LNG_CELLS;
+    }
+
+    // Intercala os bits de longitude e latitude como em um geohash de 25 bits
+    private static long cellKey(int latIndex, int lngIndex) {
+        long key = 0;
+        for (int bit = LNG_BITS - 1; bit >= 0; bit--) {
+            key = (key << 1) | ((lngIndex >> bit) & 1);
+            if (bit > 0) {
+                key = (key << 1) | ((latIndex >> (bit - 1)) & 1);
+            }
+        }
+        return key;
+    }
+
+    // Resultado reutilizável de uma consulta: a área em que a localização está mais para dentro
+    // (ou, se estiver fora de todas, a mais próxima), a profundidade em metros a partir da sua
+    // borda (negativa do lado de fora) e a distância até a borda mais próxima entre as áreas
+    // consultadas
+    static final class Query {
+        GeofenceZone zone;
+        float depth;
+        float nearestBoundary;
+        final float[] results = new float[1];
+
+        // Retorna se a localização está dentro da área encontrada
+        boolean isInside() {
+            return zone != null && depth >= 0;
+        }
+    }
+}
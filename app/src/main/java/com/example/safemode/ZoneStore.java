@@ -0,0 +1,205 @@
+package com.example.safemode;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Armazena as áreas permitidas em um arquivo binário compacto.
+ * Mantém em memória o ZoneIndex já construído, trocado de forma atômica a cada gravação,
+ * e pede ao PolicyManager uma nova PolicySnapshot quando as áreas mudam. Na primeira
+ * execução converte a área única antiga, salva como texto nas preferências, em uma área,
+ * e grava o arquivo mesmo sem área antiga para que a conversão não se repita.
+ * Cada área começa com uma marca que diz se ela é um círculo ou um polígono.
+ */
+public class ZoneStore {
+
+    private static final String FILE_NAME = "zones.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final String LEGACY_ZONE_NAME = "Área permitida";
+    private static volatile ZoneStore instance;
+    private final Context context;
+    private final AtomicFile file;
+    private volatile ZoneIndex index;
+
+    // Construtor privado que carrega as áreas salvas ou migra a área antiga
+    private ZoneStore(Context context) {
+        this.context = context;
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+
+        List<GeofenceZone> zones;
+        if (file.getBaseFile().exists()) {
+            zones = load();
+        } else {
+            zones = migrateLegacyZone();
+            write(zones);
+        }
+        index = ZoneIndex.build(zones);
+    }
+
+    // Retorna a instância única do armazenamento de áreas
+    public static ZoneStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ZoneStore.class) {
+                if (instance == null) {
+                    instance = new ZoneStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Retorna o índice das áreas atuais
+    public ZoneIndex getIndex() {
+        return index;
+    }
+
+    // Retorna a lista imutável das áreas atuais
+    public List<GeofenceZone> getZones() {
+        return index.getZones();
+    }
+
+    // Substitui todas as áreas, gravando o arquivo e reconstruindo a política
+    public boolean saveZones(List<GeofenceZone> zones) {
+        boolean saved;
+
+        synchronized (this) {
+            saved = write(zones);
+            if (saved) {
+                index = ZoneIndex.build(zones);
+            }
+        }
+
+        if (saved) {
+            PolicyManager.getInstance(context).rebuild();
+        }
+        return saved;
+    }
+
+    // Grava as áreas no arquivo de forma atômica
+    private boolean write(List<GeofenceZone> zones) {
+        FileOutputStream output = null;
+        try {
+            output = file.startWrite();
+            DataOutputStream data = new DataOutputStream(output);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(zones.size());
+
+            for (GeofenceZone zone : zones) {
+                data.writeInt(zone.id);
+                data.writeUTF(zone.name);
+                data.writeBoolean(zone.isPolygon());
+
+                if (zone.isPolygon()) {
+                    double[] latitudes = zone.getPolygonLatitudes();
+                    double[] longitudes = zone.getPolygonLongitudes();
+                    data.writeInt(latitudes.length);
+                    for (int i = 0; i < latitudes.length; i++) {
+                        data.writeDouble(latitudes[i]);
+                        data.writeDouble(longitudes[i]);
+                    }
+                } else {
+                    data.writeDouble(zone.latitude);
+                    data.writeDouble(zone.longitude);
+                    data.writeInt(zone.radius);
+                }
+
+                Set<String> apps = zone.getAllowedApps();
+                data.writeInt(apps.size());
+                for (String app : apps) {
+                    data.writeUTF(app);
+                }
+            }
+
+            data.flush();
+            file.finishWrite(output);
+            return true;
+
+        } catch (Exception e) {
+            if (output != null) {
+                file.failWrite(output);
+            }
+            return false;
+        }
+    }
+
+    // Lê as áreas salvas, ignorando um arquivo inválido
+    private List<GeofenceZone> load() {
+        List<GeofenceZone> zones = new ArrayList<>();
+
+        try (FileInputStream input = file.openRead()) {
+            DataInputStream data = new DataInputStream(input);
+
+            if (data.readInt() != FORMAT_VERSION) {
+                return zones;
+            }
+
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                int id = data.readInt();
+                String name = data.readUTF();
+                boolean polygon = data.readBoolean();
+
+                double[] latitudes = null;
+                double[] longitudes = null;
+                double latitude = 0;
+                double longitude = 0;
+                int radius = 0;
+
+                if (polygon) {
+                    int vertexCount = data.readInt();
+                    latitudes = new double[vertexCount];
+                    longitudes = new double[vertexCount];
+                    for (int j = 0; j < vertexCount; j++) {
+                        latitudes[j] = data.readDouble();
+                        longitudes[j] = data.readDouble();
+                    }
+                } else {
+                    latitude = data.readDouble();
+                    longitude = data.readDouble();
+                    radius = data.readInt();
+                }
+
+                int appCount = data.readInt();
+                Set<String> apps = new HashSet<>(appCount * 2);
+                for (int j = 0; j < appCount; j++) {
+                    apps.add(data.readUTF());
+                }
+
+                if (polygon) {
+                    zones.add(new GeofenceZone(id, name, latitudes, longitudes, apps));
+                } else {
+                    zones.add(new GeofenceZone(id, name, latitude, longitude, radius, apps));
+                }
+            }
+
+        } catch (Exception e) {
+        }
+
+        return zones;
+    }
+
+    // Converte a área única das preferências em uma área, se houver uma configurada
+    private List<GeofenceZone> migrateLegacyZone() {
+        List<GeofenceZone> zones = new ArrayList<>();
+        AppPreferences preferences = new AppPreferences(context);
+
+        double latitude = preferences.getAllowedLatitude();
+        double longitude = preferences.getAllowedLongitude();
+
+        if (latitude != 0.0 || longitude != 0.0) {
+            zones.add(new GeofenceZone(1, LEGACY_ZONE_NAME, latitude, longitude,
+                    preferences.getAllowedRadius(), new HashSet<>()));
+        }
+        return zones;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.safemode;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais do ZoneIndex com áreas poligonais, que não dependem das classes do Android.
+ */
+public class ZoneIndexTest {
+
+    private static final double METERS_PER_DEGREE = 111320;
+    private static final double LATITUDE = -23.55;
+    private static final double LONGITUDE = -46.63;
+    private static final float TOLERANCE = 1;
+
+    @Test
+    public void pointInsideSquare_isInsideWithDepthToNearestEdge() {
+        ZoneIndex.Query query = query(index(square(LATITUDE, LONGITUDE, 100)), LATITUDE, LONGITUDE, null);
+
+        assertTrue(query.isInside());
+        assertEquals(100, query.depth, TOLERANCE);
+        assertEquals(100, query.nearestBoundary, TOLERANCE);
+    }
+
+    @Test
+    public void pointOutsideSquare_isOutsideWithNegativeDepth() {
+        ZoneIndex.Query query = query(index(square(LATITUDE, LONGITUDE, 100)),
+                LATITUDE + north(150), LONGITUDE, null);
+
+        assertFalse(query.isInside());
+        assertEquals(-50, query.depth, TOLERANCE);
+        assertEquals(50, query.nearestBoundary, TOLERANCE);
+    }
+
+    @Test
+    public void pointOnEdge_hasZeroDepth() {
+        ZoneIndex.Query query = query(index(square(LATITUDE, LONGITUDE, 100)),
+                LATITUDE, LONGITUDE + east(100, LATITUDE), null);
+
+        assertEquals(0, query.depth, TOLERANCE);
+        assertEquals(0, query.nearestBoundary, TOLERANCE);
+    }
+
+    @Test
+    public void concavePolygon_excludesTheNotch() {
+        // Um L: quadrado de 200 m sem o quadrante nordeste
+        double[] x = {-100, 100, 100, 0, 0, -100};
+        double[] y = {-100, -100, 0, 0, 100, 100};
+        ZoneIndex index = index(polygon(LATITUDE, LONGITUDE, x, y, Collections.<String>emptySet()));
+
+        ZoneIndex.Query notch = query(index, LATITUDE + north(50), LONGITUDE + east(50, LATITUDE), null);
+        assertFalse(notch.isInside());
+        assertEquals(-50, notch.depth, TOLERANCE);
+
+        ZoneIndex.Query northArm = query(index, LATITUDE + north(50), LONGITUDE + east(-50, LATITUDE), null);
+        assertTrue(northArm.isInside());
+        assertEquals(50, northArm.depth, TOLERANCE);
+
+        ZoneIndex.Query eastArm = query(index, LATITUDE + north(-50), LONGITUDE + east(50, LATITUDE), null);
+        assertTrue(eastArm.isInside());
+        assertEquals(50, eastArm.depth, TOLERANCE);
+    }
+
+    @Test
+    public void polygonCrossingAntimeridian_containsPointsOnBothSides() {
+        double half = 0.001;
+        GeofenceZone zone = new GeofenceZone(1, "Antimeridiano",
+                new double[]{-half, -half, half, half},
+                new double[]{180 - half, -180 + half, -180 + half, 180 - half},
+                Collections.<String>emptySet());
+        ZoneIndex index = index(zone);
+
+        assertTrue(query(index, 0, 180 - half / 2, null).isInside());
+        assertTrue(query(index, 0, -180 + half / 2, null).isInside());
+        assertTrue(query(index, 0, 180, null).isInside());
+        assertFalse(query(index, 0, 180 - 3 * half, null).isInside());
+        assertFalse(query(index, 0, -180 + 3 * half, null).isInside());
+    }
+
+    @Test
+    public void zoneThatDoesNotAllowTheApp_isIgnored() {
+        GeofenceZone zone = polygon(LATITUDE, LONGITUDE, new double[]{-100, 100, 100, -100},
+                new double[]{-100, -100, 100, 100}, new HashSet<>(Arrays.asList("com.example.allowed")));
+        ZoneIndex index = index(zone);
+
+        assertTrue(query(index, LATITUDE, LONGITUDE, "com.example.allowed").isInside());
+        assertNull(query(index, LATITUDE, LONGITUDE, "com.example.other").zone);
+        assertTrue(query(index, LATITUDE, LONGITUDE, null).isInside());
+    }
+
+    @Test
+    public void deepestOfOverlappingPolygons_wins() {
+        GeofenceZone small = square(LATITUDE, LONGITUDE, 50);
+        GeofenceZone large = polygon(LATITUDE, LONGITUDE, new double[]{-500, 500, 500, -500},
+                new double[]{-500, -500, 500, 500}, Collections.<String>emptySet());
+
+        ZoneIndex.Query query = query(index(small, large), LATITUDE, LONGITUDE, null);
+
+        assertSame(large, query.zone);
+        assertEquals(500, query.depth, TOLERANCE);
+        assertEquals(50, query.nearestBoundary, TOLERANCE);
+    }
+
+    // Cria um quadrado com o centro e a metade do lado em metros
+    private static GeofenceZone square(double latitude, double longitude, double half) {
+        return polygon(latitude, longitude, new double[]{-half, half, half, -half},
+                new double[]{-half, -half, half, half}, Collections.<String>emptySet());
+    }
+
+    // Cria um polígono com vértices dados em metros a leste e ao norte do ponto informado
+    private static GeofenceZone polygon(double latitude, double longitude, double[] x, double[] y,
+                                        Set<String> allowedApps) {
+        double[] latitudes = new double[x.length];
+        double[] longitudes = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            latitudes[i] = latitude + north(y[i]);
+            longitudes[i] = longitude + east(x[i], latitude);
+        }
+        return new GeofenceZone(1, "Área", latitudes, longitudes, allowedApps);
+    }
+
+    // Cria o índice com as áreas informadas
+    private static ZoneIndex index(GeofenceZone... zones) {
+        return ZoneIndex.build(Arrays.asList(zones));
+    }
+
+    // Consulta o índice e retorna o resultado preenchido
+    private static ZoneIndex.Query query(ZoneIndex index, double latitude, double longitude, String packageName) {
+        ZoneIndex.Query query = new ZoneIndex.Query();
+        index.query(latitude, longitude, packageName, query);
+        return query;
+    }
+
+    // Converte metros ao norte em graus de latitude
+    private static double north(double meters) {
+        return meters / METERS_PER_DEGREE;
+    }
+
+    // Converte metros a leste em graus de longitude na latitude informada
+    private static double east(double meters, double latitude) {
+        return meters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+    }
+}